@@ -0,0 +1,324 @@
+import entities.ApplicationPaths;
+import entities.ImageDropPolicy;
+import entities.OcrWord;
+import entities.OutputFolderNames;
+import entities.PreFilter;
+import entities.ProcessingSettings;
+import entities.SpellingMode;
+import processors.FileProcessor;
+import processors.OcrEnginePool;
+import processors.ProcessingJob;
+import processors.ProcessingListener;
+import processors.SpellingCache;
+import svm.SVM;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point, processing many video files in one JVM without starting JavaFX.
+ * Libraries and the SVM model are loaded once; the files are then processed concurrently
+ * and each one gets its own output folder holding the annotated video and a words.txt file.
+ * Exits with 0 if every file was processed, 1 if any file failed and 2 on invalid arguments.
+ */
+public class BatchMain
+{
+    private static final String USAGE = "Usage: BatchMain [options] <video file or directory>...\n" +
+            "  --threads <n>      Number of videos processed concurrently (default 1)\n" +
+            "  --output <dir>     Folder receiving the output folders (default resources/outputs)\n" +
+            "  --language <code>  Tesseract language code (default eng)\n" +
+            "  --segments <n>     Time segments processed concurrently per video (default 1)\n" +
+            "  --no-text          Detect text areas only, without OCR\n" +
+            "  --fixed-sampling   Analyse every 6th frame instead of following the scene changes\n" +
+            "  --min-stride <n>   Minimum distance between analysed frames (default 3)\n" +
+            "  --max-stride <n>   Maximum distance between analysed frames (default 30)\n" +
+            "  --ocr-engines <n>  OCR engines kept initialized per language (default half the processors)\n" +
+            "  --ocr-cache <n>    Text blocks whose OCR results are reused, 0 to disable (default 256)\n" +
+            "  --ocr-batch <n>    Text blocks of a frame recognized by one OCR call, 1 to read each alone (default 8)\n" +
+            "  --min-confidence <c>      Drop the words recognized with a lower confidence, 0-100 (default 30)\n" +
+            "  --trusted-confidence <c>  Do not spell-check words recognized with this confidence (default 85)\n" +
+            "  --accurate-spelling  Spell-check with LanguageTool instead of the word frequency dictionary\n" +
+            "  --spelling-cache <file>  Reuse and save the LanguageTool corrections of earlier runs in this file\n" +
+            "  --all-words        Write every extracted word, not only the unique ones\n" +
+            "  --export-images    Write the intermediate images of every step\n" +
+            "  --export-every <n> Export the images of one analysed frame every n frames (default 1)\n" +
+            "  --export-folders <a,b>  Export only these kinds of images, e.g. detected_areas,ocr_images\n" +
+            "  --export-queue <n> Images waiting to be written before the drop policy applies (default 256)\n" +
+            "  --export-drop <p>  BLOCK, DROP_NEWEST or DROP_OLDEST (default DROP_OLDEST)\n" +
+            "  --export-zip       Write the exported images into a single images.zip file\n" +
+            "  --prefilters <a,b> Checks run before the SVM: FILL_RATIO,EDGE_DENSITY,INTENSITY_VARIANCE,STROKE_WIDTH, or none (default none)\n" +
+            "  --prefilter-eval   Only count what the pre-filters, all of them unless --prefilters is given, would reject,\n" +
+            "                     and how many text blocks that loses\n" +
+            "  --no-merge         Pass every text block to OCR, even when on the same line as another or overlapping it\n" +
+            "  --merge-gap <g>    Join text blocks of a line this far apart, relative to the line height (default 0.5)\n" +
+            "  --merge-iou <t>    Join text blocks overlapping by this intersection over union, 0-1 (default 0.5)\n";
+
+    public static void main(String[] args)
+    {
+        System.exit(run(args));
+    }
+
+    private static int run(String[] args)
+    {
+        ProcessingSettings settings = new ProcessingSettings();
+        List<String> inputs = new ArrayList<>();
+        Path outputsRoot = null;
+        Path spellingFile = null;
+        int threads = 1;
+        boolean preFiltersGiven = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads": threads = Integer.parseInt(argumentValue(args, ++i)); break;
+                    case "--output": outputsRoot = Paths.get(argumentValue(args, ++i)); break;
+                    case "--language": settings.setOcrLanguage(argumentValue(args, ++i)); break;
+                    case "--segments": settings.setSegments(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--no-text": settings.setExtractText(false); break;
+                    case "--fixed-sampling": settings.setAdaptiveSampling(false); break;
+                    case "--min-stride": settings.setMinSampleStride(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--max-stride": settings.setMaxSampleStride(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--ocr-engines": OcrEnginePool.getShared().setMaxEngines(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--ocr-cache": settings.setOcrCacheSize(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--ocr-batch": settings.setOcrBatchSize(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--min-confidence": settings.setMinWordConfidence(Double.parseDouble(argumentValue(args, ++i))); break;
+                    case "--trusted-confidence": settings.setTrustedWordConfidence(Double.parseDouble(argumentValue(args, ++i))); break;
+                    case "--accurate-spelling": settings.setSpellingMode(SpellingMode.ACCURATE); break;
+                    case "--spelling-cache": spellingFile = Paths.get(argumentValue(args, ++i)); break;
+                    case "--all-words": settings.setExtractUniqueWords(false); break;
+                    case "--export-images": settings.setExportImages(true); break;
+                    case "--export-every": settings.setExportFrameInterval(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--export-folders": settings.setExportFolders(parseFolders(argumentValue(args, ++i))); break;
+                    case "--export-queue": settings.setExportQueueCapacity(Integer.parseInt(argumentValue(args, ++i))); break;
+                    case "--export-drop": settings.setExportDropPolicy(ImageDropPolicy.valueOf(argumentValue(args, ++i))); break;
+                    case "--export-zip": settings.setExportToZip(true); break;
+                    case "--prefilters": settings.setPreFilters(parsePreFilters(argumentValue(args, ++i))); preFiltersGiven = true; break;
+                    case "--prefilter-eval": settings.setPreFilterEvaluation(true); break;
+                    case "--no-merge": settings.setMergeTextBlocks(false); break;
+                    case "--merge-gap": settings.setMaxMergeGap(Double.parseDouble(argumentValue(args, ++i))); break;
+                    case "--merge-iou": settings.setMergeIouThreshold(Double.parseDouble(argumentValue(args, ++i))); break;
+                    default:
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        inputs.add(args[i]);
+                }
+            }
+            if (settings.isPreFilterEvaluation() && !preFiltersGiven) settings.setPreFilters(EnumSet.allOf(PreFilter.class));
+            if (threads < 1) throw new IllegalArgumentException("--threads must be positive");
+            if (inputs.isEmpty()) throw new IllegalArgumentException("No video files given");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        List<VideoFile> videoFiles;
+        try {
+            ApplicationPaths.setApplicationPaths();
+            if (outputsRoot == null) outputsRoot = Paths.get(ApplicationPaths.RESOURCES_OUTPUTS);
+            videoFiles = findVideoFiles(inputs);
+            FileProcessor.loadLibraries(message -> System.out.print(message));
+            SVM.loadModel();
+            if (spellingFile != null) SpellingCache.getShared().setPersistenceFile(spellingFile);
+        } catch (Throwable e) {
+            System.err.println("Failed to start: " + e);
+            return 1;
+        }
+        if (videoFiles.isEmpty()) {
+            System.err.println("No mp4 files found");
+            return 2;
+        }
+
+        // The concurrent videos share the processor cores
+        int cores = Runtime.getRuntime().availableProcessors();
+        settings.setDetectionWorkers(Math.max(1, cores / (2 * threads)));
+        settings.setClassificationWorkers(Math.max(1, cores / (4 * threads)));
+        settings.setOcrWorkers(Math.max(1, cores / (4 * threads)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, videoFiles.size()));
+        List<Future<FileResult>> futures = new ArrayList<>();
+        for (VideoFile videoFile : videoFiles) {
+            Path root = outputsRoot;
+            futures.add(executor.submit(() -> processFile(videoFile, settings, root)));
+        }
+        executor.shutdown();
+
+        int failed = 0;
+        System.out.println("\nStatus     Time(s)   Frames Analysed  File");
+        for (Future<FileResult> future : futures) {
+            FileResult result;
+            try {
+                result = future.get();
+            } catch (Exception e) {
+                // processFile catches every failure, so this only happens on interruption
+                executor.shutdownNow();
+                return 1;
+            }
+            if (result.error != null) failed++;
+            System.out.println(String.format("%-9s %8.1f %8d %8d  %s%s", result.error == null ? "OK" : "FAILED",
+                    result.millis / 1000.0, result.frames, result.analysedFrames, result.file,
+                    result.error == null ? "" : "  (" + result.error + ")"));
+        }
+        System.out.println(String.format("%d processed, %d failed", videoFiles.size() - failed, failed));
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * Processes a single video file, catching any failure so the rest of the batch goes on.
+     * Its output folder mirrors the folder of the file under the input folder
+     */
+    private static FileResult processFile(VideoFile input, ProcessingSettings settings, Path outputsRoot)
+    {
+        File videoFile = input.file;
+        long start = System.nanoTime();
+        ProcessingJob job = null;
+        String error = null;
+        try {
+            Path outputFolder = FileProcessor.createDirectories(videoFile, outputsRoot, input.relativeFolder);
+            try (BufferedWriter wordsWriter = Files.newBufferedWriter(outputFolder.resolve("words.txt"), StandardCharsets.UTF_8)) {
+                job = new ProcessingJob(videoFile, settings, outputFolder, new FileListener(videoFile, wordsWriter));
+                if (!job.run()) error = "cancelled";
+            }
+        } catch (Throwable e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        return new FileResult(videoFile, (System.nanoTime() - start) / 1000000, job == null ? 0 : job.getEncodedFrames(),
+                job == null ? 0 : job.getAnalysedFrames(), error);
+    }
+
+    /**
+     * @return The mp4 files given directly or found under the given directories, in a stable order
+     */
+    private static List<VideoFile> findVideoFiles(List<String> inputs) throws IOException
+    {
+        List<VideoFile> videoFiles = new ArrayList<>();
+        for (String input : inputs) {
+            Path path = Paths.get(input);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> paths = Files.walk(path)) {
+                    videoFiles.addAll(paths.filter(file -> FileProcessor.validateVideoFileName(file.toFile()))
+                            .sorted()
+                            .map(file -> new VideoFile(file.toFile(), path.relativize(file.getParent())))
+                            .collect(Collectors.toList()));
+                }
+            } else if (FileProcessor.validateVideoFileName(path.toFile())) {
+                videoFiles.add(new VideoFile(path.toFile(), Paths.get("")));
+            } else {
+                throw new IOException("Cannot read mp4 file " + input);
+            }
+        }
+        return videoFiles;
+    }
+
+    /**
+     * @param names Comma separated OutputFolderNames
+     * @throws IllegalArgumentException If a name is not an output folder
+     */
+    private static Set<OutputFolderNames> parseFolders(String names)
+    {
+        Set<OutputFolderNames> folders = EnumSet.noneOf(OutputFolderNames.class);
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) folders.add(OutputFolderNames.valueOf(name.trim()));
+        }
+        return folders;
+    }
+
+    private static Set<PreFilter> parsePreFilters(String names)
+    {
+        Set<PreFilter> filters = EnumSet.noneOf(PreFilter.class);
+        if (names.trim().equals("none")) return filters;
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) filters.add(PreFilter.valueOf(name.trim()));
+        }
+        return filters;
+    }
+
+    private static String argumentValue(String[] args, int index)
+    {
+        if (index >= args.length) throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        return args[index];
+    }
+
+    /**
+     * Writes the extracted words of a video to its words file, one word per line,
+     * followed by the first and last frame its text block was visible in and the OCR confidence
+     */
+    private static class FileListener implements ProcessingListener
+    {
+        private final File videoFile;
+        private final BufferedWriter wordsWriter;
+
+        private FileListener(File videoFile, BufferedWriter wordsWriter)
+        {
+            this.videoFile = videoFile;
+            this.wordsWriter = wordsWriter;
+        }
+
+        @Override
+        public void onInfo(String message) {
+            System.out.println(videoFile.getName() + ": " + message.trim());
+        }
+
+        @Override
+        public synchronized void onWords(List<OcrWord> words) {
+            try {
+                for (OcrWord word : words) {
+                    if (word.getText().trim().isEmpty()) continue;
+                    wordsWriter.write(word.getText() + "\t" + word.getFirstFrame() + "\t" + word.getLastFrame()
+                            + "\t" + Math.round(word.getConfidence()));
+                    wordsWriter.newLine();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void onProgress(double progress) {
+        }
+    }
+
+    private static class VideoFile
+    {
+        private final File file;
+        // The folder of the file relative to the input folder it was found in
+        private final Path relativeFolder;
+
+        private VideoFile(File file, Path relativeFolder)
+        {
+            this.file = file;
+            this.relativeFolder = relativeFolder;
+        }
+    }
+
+    private static class FileResult
+    {
+        private final File file;
+        private final long millis;
+        private final int frames;
+        private final int analysedFrames;
+        private final String error;
+
+        private FileResult(File file, long millis, int frames, int analysedFrames, String error)
+        {
+            this.file = file;
+            this.millis = millis;
+            this.frames = frames;
+            this.analysedFrames = analysedFrames;
+            this.error = error;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 import controllers.MainController;
 import entities.ApplicationPaths;
+import entities.Controllers;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -9,6 +11,8 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
 import processors.FileProcessor;
+import processors.SpellingCache;
+import svm.SVM;
 import java.io.IOException;
 import java.nio.file.Paths;
 
@@ -43,6 +47,21 @@ public class Main extends Application
             return;
         }
 
+        try {
+            SVM.loadModel();
+        } catch (IOException e) {
+            new Alert(Alert.AlertType.ERROR, "Failed to load SVM model!", ButtonType.OK).showAndWait();
+            Platform.exit();
+            return;
+        }
+
+        try {
+            SpellingCache.getShared().setPersistenceFile(Paths.get(ApplicationPaths.RESOURCES_OCR, "spelling_cache.tsv"));
+        } catch (IOException e) {
+            // Not worth stopping for; the corrections are made again
+            Controllers.getLogController().logTextArea.appendText("Failed to load the spelling cache: " + e.getMessage() + "\n");
+        }
+
         stage.setOnCloseRequest(e -> {
             System.exit(0);
         });
@@ -5,9 +5,14 @@ import entities.Controllers;
 import javafx.application.Platform;
 import javafx.scene.control.Button;
 import javafx.scene.control.MenuItem;
-import javafx.scene.control.TextArea;
+import entities.OcrWord;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.collections.FXCollections;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import processors.FileProcessor;
 import processors.Player;
+import processors.ProcessingJob;
 import processors.VideoProcessor;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Cursor;
@@ -20,15 +25,15 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Pane;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import org.apache.commons.io.FilenameUtils;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -38,7 +43,10 @@ public class MainController
 {
     public Pane videoPane;
     public ImageView videoIcon;
-    public TextArea textArea;
+    public TableView<OcrWord> wordsTable;
+    public TableColumn<OcrWord, String> wordColumn;
+    public TableColumn<OcrWord, String> timeColumn;
+    public TableColumn<OcrWord, String> confidenceColumn;
     public Button processButton;
     public ProgressIndicator progressIndicator;
     public AnchorPane anchorPane;
@@ -55,13 +63,20 @@ public class MainController
 
     private static File currentVideoFile = new File("nofile");
     private static Stage mainStage;
+    private static ProcessingJob currentJob;
+    private PagedWordList words;
+    private double fontSize = 12;
 
     public void initialize()
     {
         Controllers.setMainController(this);
         initializeViews();
 
-        textArea.setVisible(false); // TestFx will fail otherwise for some reason
+        wordsTable.setVisible(false); // TestFx will fail otherwise for some reason
+        wordColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().getText()));
+        timeColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(formatTime(cell.getValue().getFirstTime())));
+        confidenceColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(Math.round(cell.getValue().getConfidence()) + "%"));
+        clearWords();
         videoIcon.setCursor(Cursor.HAND);
         processButton.setCursor(Cursor.HAND);
 
@@ -79,11 +94,11 @@ public class MainController
         });
 
         increaseFont_button.setOnMouseClicked(event -> {
-            textArea.setFont(Font.font("Verdana", FontWeight.NORMAL, textArea.getFont().getSize()+2));
+            setFontSize(fontSize + 2);
         });
 
         decreaseFont_button.setOnMouseClicked(event -> {
-            textArea.setFont(Font.font("Verdana", FontWeight.NORMAL, textArea.getFont().getSize()-2));
+            setFontSize(fontSize - 2);
         });
 
         // When dragging something, allow it to be copied/moved only if it's a mp4 file
@@ -117,21 +132,24 @@ public class MainController
         });
 
         processButton.addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            Path outputFolder;
             try {
-                FileProcessor.createDirectories(currentVideoFile);
+                outputFolder = FileProcessor.createDirectories(currentVideoFile);
             } catch (IOException e) {
                 showException(e);
                 return;
             }
+            ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME = outputFolder.getFileName().toString();
             processButton.setVisible(false);
             progressIndicator.setVisible(true);
             progressBar.setVisible(true);
-            textArea.setVisible(true);
+            wordsTable.setVisible(true);
             increaseFont_button.setVisible(true);
             decreaseFont_button.setVisible(true);
-            textArea.clear();
-            VideoProcessor.checkThreadStatus();
-            VideoProcessor.processVideoFile(currentVideoFile);
+            clearWords();
+            cancelCurrentJob();
+            currentJob = VideoProcessor.processVideoFile(currentVideoFile,
+                    Controllers.getSettingsController().getProcessingSettings(), outputFolder);
         });
 
         openVideo.setOnAction(event -> {
@@ -139,7 +157,7 @@ public class MainController
         });
 
         closeVideo.setOnAction(event -> {
-            VideoProcessor.checkThreadStatus();
+            cancelCurrentJob();
             Player.stopMediaPlayer();
             ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME = "";
             setCurrentVideoFile(new File("nofile"));
@@ -148,8 +166,8 @@ public class MainController
             videoIcon.setVisible(true);
             increaseFont_button.setVisible(false);
             decreaseFont_button.setVisible(false);
-            textArea.clear();
-            textArea.setVisible(false);
+            clearWords();
+            wordsTable.setVisible(false);
             progressIndicator.setVisible(false);
             progressBar.setVisible(false);
             processButton.setVisible(false);
@@ -235,6 +253,44 @@ public class MainController
         }
     }
 
+    /**
+     * Appends words to the results table. Must be called on the FX thread
+     * @param newWords The extracted words
+     */
+    public void addWords(List<OcrWord> newWords){
+        if (words != null) words.addWords(newWords);
+    }
+
+    /**
+     * Empties the results table, deleting the pages of the previous words
+     */
+    public void clearWords(){
+        PagedWordList previous = words;
+        try {
+            words = new PagedWordList();
+            wordsTable.setItems(words);
+        } catch (IOException e) {
+            words = null;
+            wordsTable.setItems(FXCollections.emptyObservableList());
+            showException(e);
+        }
+        if (previous != null) previous.dispose();
+    }
+
+    private void setFontSize(double size){
+        fontSize = Math.max(8, size);
+        wordsTable.setStyle("-fx-font-family: Verdana; -fx-font-size: " + fontSize + "px;");
+    }
+
+    /**
+     * @return The time as minutes and seconds, e.g. 12:05.4
+     */
+    private static String formatTime(double seconds){
+        if (Double.isNaN(seconds)) return "";
+        int minutes = (int) (seconds / 60);
+        return String.format("%d:%04.1f", minutes, seconds - 60 * minutes);
+    }
+
     public static void showException(Exception e){
         Platform.runLater(()->{
             Controllers.getLogController().logTextArea.appendText("Exception caught: " + e+"\n");
@@ -255,6 +311,16 @@ public class MainController
         });
     }
 
+    /**
+     * Cancels the video processing started from the main window, if it is still running
+     */
+    public static void cancelCurrentJob(){
+        if (currentJob != null){
+            currentJob.cancel();
+            currentJob = null;
+        }
+    }
+
     public void openVideoFile(){
         File videoFile = FileProcessor.showFileDialog();
         loadThisFile(videoFile);
@@ -263,8 +329,8 @@ public class MainController
     public void loadThisFile(File file){
         try {
             if (FileProcessor.validateVideoFile(file)){
-                VideoProcessor.checkThreadStatus();
-                textArea.clear();
+                cancelCurrentJob();
+                clearWords();
                 progressIndicator.setVisible(false);
                 progressBar.setVisible(false);
                 increaseFont_button.setVisible(false);
@@ -0,0 +1,150 @@
+package controllers;
+
+import entities.OcrWord;
+import javafx.collections.ObservableListBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The extracted words shown in the results table, holding only a few pages of words in memory.
+ * Words are appended to an in-memory page; every full page is written to a temporary file and read back
+ * on demand, when the table scrolls to it. The table only asks for its visible rows, so memory use
+ * and rendering cost do not depend on the number of words.
+ *
+ * Not thread-safe: used on the FX thread only.
+ */
+public class PagedWordList extends ObservableListBase<OcrWord>
+{
+    private static final int PAGE_SIZE = 256;
+    private static final int CACHED_PAGES = 8;
+
+    private final Path file;
+    private final RandomAccessFile storage;
+    // File offset of every full page, followed by the end of the file
+    private long[] pageOffsets = new long[16];
+    private int fullPages;
+    private List<OcrWord> tail = new ArrayList<>(PAGE_SIZE);
+    private final Map<Integer, List<OcrWord>> cachedPages = new LinkedHashMap<Integer, List<OcrWord>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<OcrWord>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+
+    /**
+     * @throws IOException If the temporary file cannot be created
+     */
+    public PagedWordList() throws IOException
+    {
+        file = Files.createTempFile("words", ".pages");
+        file.toFile().deleteOnExit();
+        storage = new RandomAccessFile(file.toFile(), "rw");
+    }
+
+    /**
+     * Appends words to the end of the list
+     * @param words The words
+     */
+    public void addWords(List<OcrWord> words)
+    {
+        if (words.isEmpty()) return;
+        int from = size();
+        beginChange();
+        try {
+            for (OcrWord word : words) {
+                tail.add(word);
+                if (tail.size() == PAGE_SIZE) writeTail();
+            }
+            nextAdd(from, size());
+        } finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public OcrWord get(int index)
+    {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        int page = index / PAGE_SIZE;
+        if (page == fullPages) return tail.get(index % PAGE_SIZE);
+        List<OcrWord> words = cachedPages.get(page);
+        if (words == null) {
+            words = readPage(page);
+            cachedPages.put(page, words);
+        }
+        return words.get(index % PAGE_SIZE);
+    }
+
+    @Override
+    public int size() {
+        return fullPages * PAGE_SIZE + tail.size();
+    }
+
+    /**
+     * Deletes the temporary file. The list must not be used afterwards
+     */
+    public void dispose()
+    {
+        try {
+            storage.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Deleted on exit
+        }
+    }
+
+    private void writeTail()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (OcrWord word : tail) {
+                out.writeUTF(word.getText());
+                out.writeInt(word.getFirstFrame());
+                out.writeInt(word.getLastFrame());
+                out.writeDouble(word.getFirstTime());
+                out.writeFloat(word.getConfidence());
+            }
+            long offset = pageOffsets[fullPages];
+            storage.seek(offset);
+            storage.write(bytes.toByteArray());
+            if (fullPages + 2 > pageOffsets.length) pageOffsets = Arrays.copyOf(pageOffsets, pageOffsets.length * 2);
+            pageOffsets[fullPages + 1] = offset + bytes.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // The page is likely to be looked at while it is the last one
+        cachedPages.put(fullPages, tail);
+        fullPages++;
+        tail = new ArrayList<>(PAGE_SIZE);
+    }
+
+    private List<OcrWord> readPage(int page)
+    {
+        byte[] bytes = new byte[(int) (pageOffsets[page + 1] - pageOffsets[page])];
+        List<OcrWord> words = new ArrayList<>(PAGE_SIZE);
+        try {
+            storage.seek(pageOffsets[page]);
+            storage.readFully(bytes);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                words.add(new OcrWord(in.readUTF(), in.readInt(), in.readInt(), in.readDouble(), in.readFloat()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+}
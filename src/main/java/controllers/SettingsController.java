@@ -2,8 +2,8 @@ package controllers;
 
 import entities.ApplicationPaths;
 import entities.Controllers;
+import entities.ProcessingSettings;
 import javafx.stage.Stage;
-import processors.ImageWriter;
 import com.sun.javafx.scene.control.skin.ComboBoxListViewSkin;
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
@@ -148,10 +148,6 @@ public class SettingsController {
             }
         });
 
-        exportImages_checkbox.selectedProperty().addListener(event -> {
-            ImageWriter.setWritingEnabled(exportImages_checkbox.isSelected());
-        });
-
 //        includeSpecialCharacters_checkbox.selectedProperty().addListener(event -> {
 //            OcrProcessor.setIncludeSpecialCharacters(includeSpecialCharacters_checkbox.isSelected());
 //        });
@@ -173,6 +169,19 @@ public class SettingsController {
         return null;
     }
 
+    /**
+     * @return The processing options currently selected in the settings window
+     */
+    public ProcessingSettings getProcessingSettings()
+    {
+        ProcessingSettings settings = new ProcessingSettings();
+        settings.setExtractText(extractTextCheckBox.isSelected());
+        settings.setExtractUniqueWords(extractUniqueWords_checkbox.isSelected());
+        settings.setExportImages(exportImages_checkbox.isSelected());
+        settings.setOcrLanguage(languageMap.get(ocrLanguage_combobox.getSelectionModel().getSelectedItem().toString()));
+        return settings;
+    }
+
     public static Map<String, String> getLanguageMap() {
         return languageMap;
     }
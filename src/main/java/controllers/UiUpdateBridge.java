@@ -0,0 +1,97 @@
+package controllers;
+
+import entities.Controllers;
+import entities.OcrWord;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carries the extracted words, log messages and progress of a job from its worker threads to the main window.
+ * Workers only append to buffers; every 100 ms, at most one runLater moves everything buffered to the controls,
+ * so a text heavy video does not flood the FX event queue and workers never wait for the FX thread.
+ */
+public class UiUpdateBridge
+{
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private List<OcrWord> pendingWords = new ArrayList<>();
+    private final StringBuilder pendingLog = new StringBuilder();
+    private double pendingProgress = -1;
+    // A flush is queued on the FX thread and has not run yet
+    private boolean flushQueued;
+    private final ScheduledExecutorService timer;
+
+    public UiUpdateBridge()
+    {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ui-update-bridge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::queueFlush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param words Words appended to the main window's results table
+     */
+    public synchronized void appendWords(List<OcrWord> words) {
+        pendingWords.addAll(words);
+    }
+
+    /**
+     * @param message Text appended to the log window
+     */
+    public synchronized void appendLog(String message) {
+        pendingLog.append(message);
+    }
+
+    /**
+     * @param progress The progress shown by the main window's progress bar, from 0 to 1. Only the latest value is shown
+     */
+    public synchronized void setProgress(double progress) {
+        pendingProgress = progress;
+    }
+
+    /**
+     * Stops the periodic updates. Whatever is still buffered is shown by the next {@link #flush()}
+     */
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Shows everything buffered so far. Must be called on the FX thread
+     */
+    public void flush()
+    {
+        List<OcrWord> words;
+        String log;
+        double progress;
+        synchronized (this) {
+            flushQueued = false;
+            words = pendingWords;
+            log = pendingLog.toString();
+            progress = pendingProgress;
+            pendingWords = new ArrayList<>();
+            pendingLog.setLength(0);
+            pendingProgress = -1;
+        }
+        if (!words.isEmpty()) Controllers.getMainController().addWords(words);
+        if (!log.isEmpty()) Controllers.getLogController().logTextArea.appendText(log);
+        if (progress >= 0) Controllers.getMainController().progressBar.setProgress(progress);
+    }
+
+    private void queueFlush()
+    {
+        synchronized (this) {
+            if (flushQueued || (pendingWords.isEmpty() && pendingLog.length() == 0 && pendingProgress < 0)) return;
+            flushQueued = true;
+        }
+        Platform.runLater(this::flush);
+    }
+}
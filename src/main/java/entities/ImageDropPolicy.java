@@ -0,0 +1,13 @@
+package entities;
+
+/**
+ * What the debug image writer does when its queue is full
+ */
+public enum ImageDropPolicy {
+    // Wait for the queue, slowing down the processing but keeping every image
+    BLOCK,
+    // Discard the image being written
+    DROP_NEWEST,
+    // Discard the oldest queued image
+    DROP_OLDEST,
+}
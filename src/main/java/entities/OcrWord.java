@@ -0,0 +1,54 @@
+package entities;
+
+/**
+ * A word extracted from a tracked text block, along with the frames the text block was visible in
+ */
+public class OcrWord
+{
+    private final String text;
+    private final int firstFrame;
+    private final int lastFrame;
+    private final double firstTime;
+    private final float confidence;
+
+    /**
+     * @param text The cleaned and spell-checked word
+     * @param firstFrame The 1-based number of the first frame the text block was seen in
+     * @param lastFrame The 1-based number of the last frame the text block was seen in
+     * @param firstTime The time of the first frame in seconds, or NaN if the frame rate is unknown
+     * @param confidence The OCR engine's confidence in the word before spelling correction, from 0 to 100
+     */
+    public OcrWord(String text, int firstFrame, int lastFrame, double firstTime, float confidence)
+    {
+        this.text = text;
+        this.firstFrame = firstFrame;
+        this.lastFrame = lastFrame;
+        this.firstTime = firstTime;
+        this.confidence = confidence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getFirstFrame() {
+        return firstFrame;
+    }
+
+    public int getLastFrame() {
+        return lastFrame;
+    }
+
+    public double getFirstTime() {
+        return firstTime;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -8,6 +8,7 @@ public enum OutputFolderNames {
     ocr_preprocessing,
     filter2_too_small,
     filter1_too_high,
+    prefilter_rejected,
     filter3_svm_no_text,
     svm_has_text,
 }
@@ -0,0 +1,15 @@
+package entities;
+
+/**
+ * The inexpensive checks which reject candidate text blocks before the SVM, in order of cost
+ */
+public enum PreFilter {
+    // Share of the bounding box covered by the connected component, from its stats
+    FILL_RATIO,
+    // Share of edge pixels in the bounding box, from the binary image before dilation
+    EDGE_DENSITY,
+    // Variance of the grey block intensities
+    INTENSITY_VARIANCE,
+    // Mean length of the horizontal strokes of the block, relative to its height
+    STROKE_WIDTH,
+}
@@ -0,0 +1,167 @@
+package entities;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A video frame travelling through the processing pipeline, along with the frames that follow it
+ * without being analysed, and the results of every stage.
+ */
+public class ProcessedFrame
+{
+    private final int frameNumber;
+    private final Mat input;
+    private final List<Mat> followingFrames = new ArrayList<>();
+    private Mat dilated;
+    private Mat edges;
+    private List<Rect> textBlocks = Collections.emptyList();
+    private int candidateBlocks;
+    private int earlyExits;
+    private List<TextTrack> endedTracks = Collections.emptyList();
+    private List<OcrWord> words = Collections.emptyList();
+    private boolean lastOfRange;
+    private boolean exportingImages;
+
+    /**
+     * @param frameNumber The 1-based position of the analysed frame in the video
+     * @param input The analysed frame. The ProcessedFrame takes ownership of it
+     */
+    public ProcessedFrame(int frameNumber, Mat input)
+    {
+        this.frameNumber = frameNumber;
+        this.input = input;
+    }
+
+    /**
+     * Adds a frame which is not analysed, but is written to the output video using the text blocks of this frame
+     * @param frame The skipped frame. The ProcessedFrame takes ownership of it
+     */
+    public void addFollowingFrame(Mat frame) {
+        followingFrames.add(frame);
+    }
+
+    /**
+     * Releases the native memory of every image held by this frame
+     */
+    public void release()
+    {
+        input.release();
+        for (Mat frame : followingFrames) frame.release();
+        if (dilated != null) dilated.release();
+        if (edges != null) edges.release();
+        for (TextTrack track : endedTracks) track.release();
+    }
+
+    public int getFrameNumber() {
+        return frameNumber;
+    }
+
+    /**
+     * @return The number of the last video frame covered by this item
+     */
+    public int getLastFrameNumber() {
+        return frameNumber + followingFrames.size();
+    }
+
+    public Mat getInput() {
+        return input;
+    }
+
+    public List<Mat> getFollowingFrames() {
+        return followingFrames;
+    }
+
+    public Mat getDilated() {
+        return dilated;
+    }
+
+    public void setDilated(Mat dilated) {
+        this.dilated = dilated;
+    }
+
+    /**
+     * @return The binary edge image, before dilation, or null if the pre-filters do not use it
+     */
+    public Mat getEdges() {
+        return edges;
+    }
+
+    public void setEdges(Mat edges) {
+        this.edges = edges;
+    }
+
+    public List<Rect> getTextBlocks() {
+        return textBlocks;
+    }
+
+    public void setTextBlocks(List<Rect> textBlocks) {
+        this.textBlocks = textBlocks;
+    }
+
+    /**
+     * @return The number of candidate blocks passed to the classifier; {@link #getTextBlocks()} are the accepted ones
+     */
+    public int getCandidateBlocks() {
+        return candidateBlocks;
+    }
+
+    public void setCandidateBlocks(int candidateBlocks) {
+        this.candidateBlocks = candidateBlocks;
+    }
+
+    /**
+     * @return The number of candidate blocks classified without scoring all their cells
+     */
+    public int getEarlyExits() {
+        return earlyExits;
+    }
+
+    public void setEarlyExits(int earlyExits) {
+        this.earlyExits = earlyExits;
+    }
+
+    /**
+     * @return The text tracks which ended with this frame, to be passed to OCR
+     */
+    public List<TextTrack> getEndedTracks() {
+        return endedTracks;
+    }
+
+    public void setEndedTracks(List<TextTrack> endedTracks) {
+        this.endedTracks = endedTracks;
+    }
+
+    public List<OcrWord> getWords() {
+        return words;
+    }
+
+    public void setWords(List<OcrWord> words) {
+        this.words = words;
+    }
+
+    /**
+     * @return True if no more frames of the processed range follow this one
+     */
+    public boolean isLastOfRange() {
+        return lastOfRange;
+    }
+
+    public void setLastOfRange(boolean lastOfRange) {
+        this.lastOfRange = lastOfRange;
+    }
+
+    /**
+     * @return True if the intermediate images of this frame are exported
+     */
+    public boolean isExportingImages() {
+        return exportingImages;
+    }
+
+    public void setExportingImages(boolean exportingImages) {
+        this.exportingImages = exportingImages;
+    }
+}
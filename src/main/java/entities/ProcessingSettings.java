@@ -0,0 +1,526 @@
+package entities;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Options of a video processing job.
+ * Jobs work on an immutable {@link #snapshot()} of the settings, so the original object
+ * may keep changing (e.g. from the settings view) without affecting running jobs.
+ */
+public class ProcessingSettings implements Cloneable
+{
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private boolean frozen;
+
+    private boolean extractText = true;
+    private boolean extractUniqueWords = true;
+    private boolean exportImages = false;
+    private int exportFrameInterval = 1;
+    private Set<OutputFolderNames> exportFolders = Collections.unmodifiableSet(EnumSet.allOf(OutputFolderNames.class));
+    private int exportQueueCapacity = 256;
+    private ImageDropPolicy exportDropPolicy = ImageDropPolicy.DROP_OLDEST;
+    private boolean exportToZip = false;
+    private String ocrLanguage = "eng";
+    private SpellingMode spellingMode = SpellingMode.FAST;
+    private boolean slidingWindowMgd = true;
+
+    private int detectionWorkers = Math.max(1, CORES / 2);
+    private int classificationWorkers = Math.max(1, CORES / 4);
+    private int ocrWorkers = Math.max(1, CORES / 4);
+    private int queueCapacity = 4;
+    private int segments = 1;
+
+    private boolean adaptiveSampling = true;
+    private int minSampleStride = 3;
+    private int maxSampleStride = 30;
+    private double sceneChangeThreshold = 8.0;
+
+    private int ocrCacheSize = 256;
+    private int ocrCacheTolerance = 3;
+    private double minWordConfidence = 30.0;
+    private double trustedWordConfidence = 85.0;
+    private int ocrBatchSize = 8;
+
+    // None until their thresholds are validated with the evaluation mode; they cost an unknown recall
+    private Set<PreFilter> preFilters = Collections.unmodifiableSet(EnumSet.noneOf(PreFilter.class));
+    private boolean preFilterEvaluation = false;
+    private double minFillRatio = 0.2;
+    private double minEdgeDensity = 0.03;
+    private double minIntensityVariance = 100.0;
+    private double maxStrokeWidth = 0.4;
+
+    private boolean mergeTextBlocks = true;
+    private double maxMergeGap = 0.5;
+    private double mergeIouThreshold = 0.5;
+
+    /**
+     * @return An immutable copy of these settings; its setters throw IllegalStateException
+     */
+    public ProcessingSettings snapshot()
+    {
+        if (frozen) return this;
+        try {
+            ProcessingSettings copy = (ProcessingSettings) clone();
+            copy.frozen = true;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public boolean isExtractText() {
+        return extractText;
+    }
+
+    /**
+     * @param extractText Whether the detected text blocks are passed to OCR
+     */
+    public void setExtractText(boolean extractText) {
+        checkMutable();
+        this.extractText = extractText;
+    }
+
+    public boolean isExtractUniqueWords() {
+        return extractUniqueWords;
+    }
+
+    /**
+     * @param extractUniqueWords Whether each extracted word is reported only the first time it appears
+     */
+    public void setExtractUniqueWords(boolean extractUniqueWords) {
+        checkMutable();
+        this.extractUniqueWords = extractUniqueWords;
+    }
+
+    public boolean isExportImages() {
+        return exportImages;
+    }
+
+    /**
+     * @param exportImages Whether the intermediate images of every step are written to the output folder
+     */
+    public void setExportImages(boolean exportImages) {
+        checkMutable();
+        this.exportImages = exportImages;
+    }
+
+    public int getExportFrameInterval() {
+        return exportFrameInterval;
+    }
+
+    /**
+     * @param exportFrameInterval Images are exported for the first analysed frame of every this many video frames
+     */
+    public void setExportFrameInterval(int exportFrameInterval) {
+        checkMutable();
+        this.exportFrameInterval = requirePositive(exportFrameInterval);
+    }
+
+    public Set<OutputFolderNames> getExportFolders() {
+        return exportFolders;
+    }
+
+    /**
+     * @param exportFolders The kinds of images which are exported
+     */
+    public void setExportFolders(Set<OutputFolderNames> exportFolders) {
+        checkMutable();
+        this.exportFolders = Collections.unmodifiableSet(exportFolders.isEmpty()
+                ? EnumSet.noneOf(OutputFolderNames.class) : EnumSet.copyOf(exportFolders));
+    }
+
+    public int getExportQueueCapacity() {
+        return exportQueueCapacity;
+    }
+
+    /**
+     * @param exportQueueCapacity Maximum number of images waiting to be encoded and written
+     */
+    public void setExportQueueCapacity(int exportQueueCapacity) {
+        checkMutable();
+        this.exportQueueCapacity = requirePositive(exportQueueCapacity);
+    }
+
+    public ImageDropPolicy getExportDropPolicy() {
+        return exportDropPolicy;
+    }
+
+    /**
+     * @param exportDropPolicy What happens to the exported images when the writer falls behind
+     */
+    public void setExportDropPolicy(ImageDropPolicy exportDropPolicy) {
+        checkMutable();
+        this.exportDropPolicy = exportDropPolicy;
+    }
+
+    public boolean isExportToZip() {
+        return exportToZip;
+    }
+
+    /**
+     * @param exportToZip Whether the exported images are appended to a single images.zip file
+     *                    instead of being written as separate files
+     */
+    public void setExportToZip(boolean exportToZip) {
+        checkMutable();
+        this.exportToZip = exportToZip;
+    }
+
+    public String getOcrLanguage() {
+        return ocrLanguage;
+    }
+
+    /**
+     * @param ocrLanguage The 3-character ISO 639-2 code of the tessdata language, e.g. "eng"
+     */
+    public void setOcrLanguage(String ocrLanguage) {
+        checkMutable();
+        this.ocrLanguage = ocrLanguage;
+    }
+
+    public SpellingMode getSpellingMode() {
+        return spellingMode;
+    }
+
+    /**
+     * @param spellingMode How the extracted words are spell-checked. FAST falls back to ACCURATE
+     *                     for languages without a word frequency list
+     */
+    public void setSpellingMode(SpellingMode spellingMode) {
+        checkMutable();
+        this.spellingMode = spellingMode;
+    }
+
+    public boolean isSlidingWindowMgd() {
+        return slidingWindowMgd;
+    }
+
+    /**
+     * @param slidingWindowMgd Selects between the linear-time MGD implementation and the original per-pixel one.
+     *                         Both produce identical results
+     */
+    public void setSlidingWindowMgd(boolean slidingWindowMgd) {
+        checkMutable();
+        this.slidingWindowMgd = slidingWindowMgd;
+    }
+
+    public int getDetectionWorkers() {
+        return detectionWorkers;
+    }
+
+    /**
+     * @param detectionWorkers Threads running blur, Laplacian, MGD, thresholding and dilation
+     */
+    public void setDetectionWorkers(int detectionWorkers) {
+        checkMutable();
+        this.detectionWorkers = requirePositive(detectionWorkers);
+    }
+
+    public int getClassificationWorkers() {
+        return classificationWorkers;
+    }
+
+    /**
+     * @param classificationWorkers Threads running connected components and SVM filtering
+     */
+    public void setClassificationWorkers(int classificationWorkers) {
+        checkMutable();
+        this.classificationWorkers = requirePositive(classificationWorkers);
+    }
+
+    public int getOcrWorkers() {
+        return ocrWorkers;
+    }
+
+    /**
+     * @param ocrWorkers Threads running text block preprocessing and OCR, each with its own OCR engine
+     */
+    public void setOcrWorkers(int ocrWorkers) {
+        checkMutable();
+        this.ocrWorkers = requirePositive(ocrWorkers);
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @param queueCapacity Maximum number of frames waiting in front of each stage
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        checkMutable();
+        this.queueCapacity = requirePositive(queueCapacity);
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    /**
+     * @param segments Number of time segments a video is split into and processed concurrently,
+     *                 each with its own video capture and pipeline. 1 processes the video as a whole
+     */
+    public void setSegments(int segments) {
+        checkMutable();
+        this.segments = requirePositive(segments);
+    }
+
+    public boolean isAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    /**
+     * @param adaptiveSampling Whether the distance between analysed frames follows the scene changes.
+     *                         Otherwise every 6th frame is analysed
+     */
+    public void setAdaptiveSampling(boolean adaptiveSampling) {
+        checkMutable();
+        this.adaptiveSampling = adaptiveSampling;
+    }
+
+    public int getMinSampleStride() {
+        return minSampleStride;
+    }
+
+    /**
+     * @param minSampleStride The minimum distance, in frames, between two analysed frames
+     */
+    public void setMinSampleStride(int minSampleStride) {
+        checkMutable();
+        this.minSampleStride = requirePositive(minSampleStride);
+    }
+
+    public int getMaxSampleStride() {
+        return maxSampleStride;
+    }
+
+    /**
+     * @param maxSampleStride The maximum distance, in frames, between two analysed frames of a static scene
+     */
+    public void setMaxSampleStride(int maxSampleStride) {
+        checkMutable();
+        this.maxSampleStride = requirePositive(maxSampleStride);
+    }
+
+    public double getSceneChangeThreshold() {
+        return sceneChangeThreshold;
+    }
+
+    /**
+     * @param sceneChangeThreshold The mean absolute luma difference (0-255) from the last analysed frame
+     *                             above which a frame is considered a new scene and gets analysed
+     */
+    public void setSceneChangeThreshold(double sceneChangeThreshold) {
+        checkMutable();
+        if (sceneChangeThreshold < 0) throw new IllegalArgumentException("Value must not be negative: " + sceneChangeThreshold);
+        this.sceneChangeThreshold = sceneChangeThreshold;
+    }
+
+    public int getOcrCacheSize() {
+        return ocrCacheSize;
+    }
+
+    /**
+     * @param ocrCacheSize Maximum number of text blocks whose OCR results are kept for reuse. 0 disables the cache
+     */
+    public void setOcrCacheSize(int ocrCacheSize) {
+        checkMutable();
+        if (ocrCacheSize < 0) throw new IllegalArgumentException("Value must not be negative: " + ocrCacheSize);
+        this.ocrCacheSize = ocrCacheSize;
+    }
+
+    public int getOcrCacheTolerance() {
+        return ocrCacheTolerance;
+    }
+
+    /**
+     * @param ocrCacheTolerance Maximum number of differing bits, out of 256, between the perceptual hashes
+     *                          of two text blocks for them to share OCR results.
+     *                          A single different letter in a line of text changes about 4 bits
+     */
+    public void setOcrCacheTolerance(int ocrCacheTolerance) {
+        checkMutable();
+        if (ocrCacheTolerance < 0) throw new IllegalArgumentException("Value must not be negative: " + ocrCacheTolerance);
+        this.ocrCacheTolerance = ocrCacheTolerance;
+    }
+
+    public double getMinWordConfidence() {
+        return minWordConfidence;
+    }
+
+    /**
+     * @param minWordConfidence The OCR confidence (0-100) below which a word is considered noise and dropped
+     */
+    public void setMinWordConfidence(double minWordConfidence) {
+        checkMutable();
+        this.minWordConfidence = requireConfidence(minWordConfidence);
+    }
+
+    public double getTrustedWordConfidence() {
+        return trustedWordConfidence;
+    }
+
+    /**
+     * @param trustedWordConfidence The OCR confidence (0-100) from which a word is kept as recognized,
+     *                              without spelling correction
+     */
+    public void setTrustedWordConfidence(double trustedWordConfidence) {
+        checkMutable();
+        this.trustedWordConfidence = requireConfidence(trustedWordConfidence);
+    }
+
+    public int getOcrBatchSize() {
+        return ocrBatchSize;
+    }
+
+    /**
+     * @param ocrBatchSize The maximum number of text blocks of a frame recognized by a single OCR call,
+     *                     stacked into one image; 1 recognizes every text block on its own
+     */
+    public void setOcrBatchSize(int ocrBatchSize) {
+        checkMutable();
+        this.ocrBatchSize = requirePositive(ocrBatchSize);
+    }
+
+    public Set<PreFilter> getPreFilters() {
+        return preFilters;
+    }
+
+    /**
+     * @param preFilters The checks rejecting candidate text blocks before the SVM; they always run in order of cost.
+     *                   None by default
+     */
+    public void setPreFilters(Set<PreFilter> preFilters) {
+        checkMutable();
+        this.preFilters = Collections.unmodifiableSet(preFilters.isEmpty()
+                ? EnumSet.noneOf(PreFilter.class) : EnumSet.copyOf(preFilters));
+    }
+
+    public boolean isPreFilterEvaluation() {
+        return preFilterEvaluation;
+    }
+
+    /**
+     * @param preFilterEvaluation Whether the pre-filters only count the blocks they would reject, and how many of
+     *                            those the SVM accepts, while every candidate is still passed to the SVM
+     */
+    public void setPreFilterEvaluation(boolean preFilterEvaluation) {
+        checkMutable();
+        this.preFilterEvaluation = preFilterEvaluation;
+    }
+
+    public double getMinFillRatio() {
+        return minFillRatio;
+    }
+
+    /**
+     * @param minFillRatio The share of its bounding box (0-1) a connected component must cover
+     */
+    public void setMinFillRatio(double minFillRatio) {
+        checkMutable();
+        this.minFillRatio = requireRatio(minFillRatio);
+    }
+
+    public double getMinEdgeDensity() {
+        return minEdgeDensity;
+    }
+
+    /**
+     * @param minEdgeDensity The share of edge pixels (0-1) the bounding box of a component must contain
+     */
+    public void setMinEdgeDensity(double minEdgeDensity) {
+        checkMutable();
+        this.minEdgeDensity = requireRatio(minEdgeDensity);
+    }
+
+    public double getMinIntensityVariance() {
+        return minIntensityVariance;
+    }
+
+    /**
+     * @param minIntensityVariance The variance of the grey intensities a candidate block must have
+     */
+    public void setMinIntensityVariance(double minIntensityVariance) {
+        checkMutable();
+        if (minIntensityVariance < 0) throw new IllegalArgumentException("Value must not be negative: " + minIntensityVariance);
+        this.minIntensityVariance = minIntensityVariance;
+    }
+
+    public double getMaxStrokeWidth() {
+        return maxStrokeWidth;
+    }
+
+    /**
+     * @param maxStrokeWidth The mean horizontal stroke length of a candidate block above which it is rejected,
+     *                       relative to the block height (0-1)
+     */
+    public void setMaxStrokeWidth(double maxStrokeWidth) {
+        checkMutable();
+        this.maxStrokeWidth = requireRatio(maxStrokeWidth);
+    }
+
+    public boolean isMergeTextBlocks() {
+        return mergeTextBlocks;
+    }
+
+    /**
+     * @param mergeTextBlocks Whether the text blocks of a frame on the same line, or overlapping, are joined
+     *                        before they are tracked and passed to OCR
+     */
+    public void setMergeTextBlocks(boolean mergeTextBlocks) {
+        checkMutable();
+        this.mergeTextBlocks = mergeTextBlocks;
+    }
+
+    public double getMaxMergeGap() {
+        return maxMergeGap;
+    }
+
+    /**
+     * @param maxMergeGap The largest horizontal gap between two text blocks of the same line which are joined,
+     *                    relative to the line height
+     */
+    public void setMaxMergeGap(double maxMergeGap) {
+        checkMutable();
+        if (maxMergeGap < 0) throw new IllegalArgumentException("Value must not be negative: " + maxMergeGap);
+        this.maxMergeGap = maxMergeGap;
+    }
+
+    public double getMergeIouThreshold() {
+        return mergeIouThreshold;
+    }
+
+    /**
+     * @param mergeIouThreshold The intersection over union (0-1) from which two overlapping text blocks are joined
+     */
+    public void setMergeIouThreshold(double mergeIouThreshold) {
+        checkMutable();
+        this.mergeIouThreshold = requireRatio(mergeIouThreshold);
+    }
+
+    private void checkMutable()
+    {
+        if (frozen) throw new IllegalStateException("Settings snapshots cannot be modified");
+    }
+
+    private static int requirePositive(int value)
+    {
+        if (value < 1) throw new IllegalArgumentException("Value must be positive: " + value);
+        return value;
+    }
+
+    private static double requireRatio(double value)
+    {
+        if (value < 0 || value > 1) throw new IllegalArgumentException("Value must be between 0 and 1: " + value);
+        return value;
+    }
+
+    private static double requireConfidence(double value)
+    {
+        if (value < 0 || value > 100) throw new IllegalArgumentException("Value must be between 0 and 100: " + value);
+        return value;
+    }
+}
@@ -0,0 +1,49 @@
+package entities;
+
+import org.opencv.core.Rect;
+
+/**
+ * A word as recognized by OCR in a single text block image
+ */
+public class RecognizedWord
+{
+    private final String text;
+    private final float confidence;
+    private final Rect box;
+
+    /**
+     * @param text The word
+     * @param confidence The OCR engine's confidence in the word, from 0 to 100
+     * @param box The bounding box of the word in the text block image
+     */
+    public RecognizedWord(String text, float confidence, Rect box)
+    {
+        this.text = text;
+        this.confidence = confidence;
+        this.box = box;
+    }
+
+    /**
+     * @return A copy of this word with another text, e.g. after spelling correction
+     */
+    public RecognizedWord withText(String text) {
+        return new RecognizedWord(text, confidence, box);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public float getConfidence() {
+        return confidence;
+    }
+
+    public Rect getBox() {
+        return box;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,11 @@
+package entities;
+
+/**
+ * How the extracted words are spell-checked
+ */
+public enum SpellingMode {
+    // Nearest dictionary word, from the word frequency list of the OCR language
+    FAST,
+    // LanguageTool spelling rules
+    ACCURATE,
+}
@@ -0,0 +1,104 @@
+package entities;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+/**
+ * A text block followed across the analysed frames of a video.
+ * Keeps the sharpest instance seen so far, which is the one passed to OCR once the track has ended.
+ */
+public class TextTrack
+{
+    public enum State { NEW, STABLE, ENDED }
+
+    private final int firstFrame;
+    private int lastFrame;
+    private Rect box;
+    private Mat appearance;
+    private Mat bestInstance;
+    private double bestSharpness = -1;
+    private int sightings;
+    private int missed;
+    private State state = State.NEW;
+
+    /**
+     * @param firstFrame The number of the analysed frame the text block first appeared in
+     */
+    public TextTrack(int firstFrame)
+    {
+        this.firstFrame = firstFrame;
+        this.lastFrame = firstFrame;
+    }
+
+    /**
+     * Records a new sighting of the text block
+     * @param box The text block area in the frame
+     * @param appearance A small grayscale thumbnail of the text block. The track takes ownership of it
+     * @param instance The text block crop. Kept (as a copy) only if it is sharper than the previous instances
+     * @param sharpness The sharpness measure of the crop
+     * @param lastFrame The number of the last video frame showing this sighting
+     */
+    public void addSighting(Rect box, Mat appearance, Mat instance, double sharpness, int lastFrame)
+    {
+        this.box = box;
+        if (this.appearance != null) this.appearance.release();
+        this.appearance = appearance;
+        if (sharpness > bestSharpness) {
+            if (bestInstance != null) bestInstance.release();
+            bestInstance = instance.clone();
+            bestSharpness = sharpness;
+        }
+        this.lastFrame = lastFrame;
+        this.missed = 0;
+        if (++sightings > 1) state = State.STABLE;
+    }
+
+    /**
+     * @return The number of consecutive analysed frames the text block was missing from
+     */
+    public int miss() {
+        return ++missed;
+    }
+
+    public void end() {
+        state = State.ENDED;
+        if (appearance != null) appearance.release();
+    }
+
+    /**
+     * Releases the native memory of the kept images
+     */
+    public void release()
+    {
+        if (appearance != null) appearance.release();
+        if (bestInstance != null) bestInstance.release();
+    }
+
+    public int getFirstFrame() {
+        return firstFrame;
+    }
+
+    public int getLastFrame() {
+        return lastFrame;
+    }
+
+    public Rect getBox() {
+        return box;
+    }
+
+    public Mat getAppearance() {
+        return appearance;
+    }
+
+    public Mat getBestInstance() {
+        return bestInstance;
+    }
+
+    public int getSightings() {
+        return sightings;
+    }
+
+    public State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,283 @@
+package pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A chain of processing stages joined by bounded queues.
+ * Every stage runs on its own worker threads, each one owning a {@link StageWorker} created by the stage's factory.
+ * Submitting blocks while the first queue is full, so a slow stage holds back the whole chain (backpressure).
+ * Ordered stages run on a single worker and receive the items in the exact order they were submitted.
+ * Items an ordered stage buffers while it waits for an earlier one would escape the queues, so the number of items
+ * in flight is also bounded, by what the queues and workers can hold: submitting blocks until an item leaves
+ * the last stage.
+ * @param <T> The type of the items flowing through the stages
+ */
+public class Pipeline<T>
+{
+    private static final long POLL_MILLIS = 100;
+
+    private final String name;
+    private final int queueCapacity;
+    private final List<Stage<T>> stages = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private ExecutorService executor;
+    private Semaphore inFlight;
+    private long nextSequence;
+    private volatile boolean cancelled;
+
+    /**
+     * @param name Used to name the worker threads
+     * @param queueCapacity The capacity of the queue in front of every stage
+     */
+    public Pipeline(String name, int queueCapacity)
+    {
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be positive");
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Appends a stage which processes items concurrently, in no particular order
+     * @param stageName The stage name
+     * @param workers The number of worker threads
+     * @param factory Creates one worker per thread
+     * @return This pipeline
+     */
+    public Pipeline<T> addStage(String stageName, int workers, StageWorker.Factory<T> factory)
+    {
+        if (workers < 1) throw new IllegalArgumentException("Stage " + stageName + " needs at least one worker");
+        stages.add(new Stage<>(stageName, workers, false, factory, queueCapacity));
+        return this;
+    }
+
+    /**
+     * Appends a single-worker stage which processes the items in submission order
+     * @param stageName The stage name
+     * @param factory Creates the stage worker
+     * @return This pipeline
+     */
+    public Pipeline<T> addOrderedStage(String stageName, StageWorker.Factory<T> factory)
+    {
+        stages.add(new Stage<>(stageName, 1, true, factory, queueCapacity));
+        return this;
+    }
+
+    /**
+     * Starts the worker threads of every stage
+     */
+    public void start()
+    {
+        if (stages.isEmpty()) throw new IllegalStateException("Pipeline has no stages");
+        int threads = 0;
+        for (Stage<T> stage : stages) threads += stage.workers;
+        inFlight = new Semaphore(stages.size() * queueCapacity + threads);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < stages.size(); i++) {
+            Stage<T> stage = stages.get(i);
+            Stage<T> next = (i + 1 < stages.size()) ? stages.get(i + 1) : null;
+            for (int w = 0; w < stage.workers; w++) {
+                String threadName = name + "-" + stage.name + "-" + w;
+                executor.execute(() -> {
+                    Thread.currentThread().setName(threadName);
+                    runWorker(stage, next);
+                });
+            }
+        }
+    }
+
+    /**
+     * Feeds an item to the first stage, blocking while its queue is full or too many items are in flight
+     * @param item The item to process
+     * @throws InterruptedException If the calling thread was interrupted while waiting
+     * @throws IllegalStateException If a stage has failed
+     */
+    public void submit(T item) throws InterruptedException
+    {
+        while (!inFlight.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkRunning();
+        }
+        enqueue(stages.get(0).input, new Envelope<>(nextSequence++, item));
+    }
+
+    /**
+     * Signals that no more items will be submitted and waits until every stage has drained
+     * @throws Exception The first exception thrown by a stage worker, if any
+     */
+    public void finish() throws Exception
+    {
+        enqueue(stages.get(0).input, Envelope.end());
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) break;
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+        if (failure.get() != null) {
+            cancel();
+            throw failure.get();
+        }
+        if (cancelled) throw new InterruptedException("Pipeline " + name + " was cancelled");
+    }
+
+    /**
+     * Stops all the stages as soon as possible, discarding the items in flight,
+     * and waits until every worker has returned, so their resources can be safely released
+     */
+    public void cancel()
+    {
+        stop();
+        if (executor == null) return;
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                if (executor.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void stop()
+    {
+        cancelled = true;
+        if (executor != null) executor.shutdownNow();
+        for (Stage<T> stage : stages) stage.input.clear();
+    }
+
+    private void enqueue(BlockingQueue<Envelope<T>> queue, Envelope<T> envelope) throws InterruptedException
+    {
+        while (!queue.offer(envelope, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkRunning();
+        }
+    }
+
+    private void checkRunning() throws InterruptedException
+    {
+        if (failure.get() != null) throw new IllegalStateException("Pipeline " + name + " has failed", failure.get());
+        if (cancelled) throw new InterruptedException("Pipeline " + name + " was cancelled");
+    }
+
+    /**
+     * Passes a processed item to the next stage, or frees its place in flight if this was the last stage
+     */
+    private void forward(Envelope<T> envelope, Stage<T> next) throws InterruptedException
+    {
+        if (next != null) {
+            enqueue(next.input, envelope);
+        } else {
+            inFlight.release();
+        }
+    }
+
+    private void runWorker(Stage<T> stage, Stage<T> next)
+    {
+        StageWorker<T> worker = null;
+        try {
+            worker = stage.factory.create();
+            PriorityQueue<Envelope<T>> reorderBuffer = new PriorityQueue<>();
+            long expected = 0;
+            while (true) {
+                Envelope<T> envelope = stage.input.take();
+                if (envelope.isEnd()) {
+                    // Let the sibling workers of this stage see the end marker too
+                    stage.input.put(envelope);
+                    break;
+                }
+                if (!stage.ordered) {
+                    worker.process(envelope.item);
+                    forward(envelope, next);
+                    continue;
+                }
+                reorderBuffer.add(envelope);
+                while (!reorderBuffer.isEmpty() && reorderBuffer.peek().sequence == expected) {
+                    Envelope<T> head = reorderBuffer.poll();
+                    worker.process(head.item);
+                    forward(head, next);
+                    expected++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            if (failure.compareAndSet(null, (e instanceof Exception) ? (Exception) e : new Exception(e))) stop();
+        } finally {
+            if (worker != null) worker.close();
+            // The last worker of a stage to finish forwards the end marker downstream
+            if (stage.running.decrementAndGet() == 0 && next != null && failure.get() == null && !cancelled) {
+                try {
+                    enqueue(next.input, Envelope.end());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static class Stage<T>
+    {
+        private final String name;
+        private final int workers;
+        private final boolean ordered;
+        private final StageWorker.Factory<T> factory;
+        private final BlockingQueue<Envelope<T>> input;
+        private final AtomicInteger running;
+
+        private Stage(String name, int workers, boolean ordered, StageWorker.Factory<T> factory, int queueCapacity)
+        {
+            this.name = name;
+            this.workers = workers;
+            this.ordered = ordered;
+            this.factory = factory;
+            // One extra slot, so a worker can always put back the end marker for its siblings
+            this.input = new ArrayBlockingQueue<>(queueCapacity + 1);
+            this.running = new AtomicInteger(workers);
+        }
+    }
+
+    private static class Envelope<T> implements Comparable<Envelope<T>>
+    {
+        private final long sequence;
+        private final T item;
+
+        private Envelope(long sequence, T item)
+        {
+            this.sequence = sequence;
+            this.item = item;
+        }
+
+        private static <T> Envelope<T> end() {
+            return new Envelope<>(-1, null);
+        }
+
+        private boolean isEnd() {
+            return sequence < 0;
+        }
+
+        @Override
+        public int compareTo(Envelope<T> other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package pipeline;
+
+/**
+ * Processes the items of a single {@link Pipeline} stage.
+ * Every worker thread owns its own instance, so implementations may keep reusable, non thread-safe state.
+ * @param <T> The type of the pipeline items
+ */
+public interface StageWorker<T>
+{
+    /**
+     * Processes a single item. The item is passed on to the next stage once this method returns
+     * @param item The pipeline item
+     * @throws Exception Any failure, which stops the whole pipeline
+     */
+    void process(T item) throws Exception;
+
+    /**
+     * Releases the resources of the worker. Called once, from the worker thread, when the stage ends
+     */
+    default void close() {}
+
+    /**
+     * Creates the worker of a stage thread. Called from the worker thread itself
+     * @param <T> The type of the pipeline items
+     */
+    interface Factory<T>
+    {
+        StageWorker<T> create() throws Exception;
+    }
+}
@@ -0,0 +1,55 @@
+package processors;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The text block classification counts of every analysed frame, written to a CSV file in the output folder:
+ * the candidate blocks passed to the classifier, the blocks it accepted and the blocks it decided early,
+ * before scoring all their cells. The rows are in the order the frames were classified, not in frame order.
+ *
+ * Thread-safe: rows are added by the classification workers of all the segments of a job.
+ */
+public class ClassificationLog implements Closeable
+{
+    static final String FILE_NAME = "classification.csv";
+
+    private final BufferedWriter writer;
+    private boolean closed;
+
+    /**
+     * @param outputFolder The folder receiving the file
+     * @throws IOException If the file cannot be created
+     */
+    public ClassificationLog(Path outputFolder) throws IOException
+    {
+        writer = Files.newBufferedWriter(outputFolder.resolve(FILE_NAME), StandardCharsets.UTF_8);
+        writer.write("frame,last_frame,candidates,accepted,early_exits\n");
+    }
+
+    /**
+     * @param frameNumber The number of the analysed frame
+     * @param lastFrameNumber The number of the last video frame sharing its text blocks
+     * @param candidates The candidate blocks passed to the classifier
+     * @param accepted The blocks classified as text
+     * @param earlyExits The blocks decided before all their cells were scored
+     * @throws IOException If the file cannot be written
+     */
+    public synchronized void add(int frameNumber, int lastFrameNumber, int candidates, int accepted, int earlyExits) throws IOException
+    {
+        if (closed) return;
+        writer.write(frameNumber + "," + lastFrameNumber + "," + candidates + "," + accepted + "," + earlyExits + "\n");
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (closed) return;
+        closed = true;
+        writer.close();
+    }
+}
@@ -11,9 +11,12 @@ import org.apache.commons.lang3.SystemUtils;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Date;
+import java.util.function.Consumer;
 
 /**
  * Created by arxa on 16/11/2016.
@@ -21,6 +24,8 @@ import java.util.Date;
 
 public class FileProcessor
 {
+    private static final int MAX_FOLDER_ATTEMPTS = 1000;
+
     /**
      * Allows the user to choose a file through a file dialog
      * and then validates if the File is valid, if it's playable
@@ -39,25 +44,55 @@ public class FileProcessor
     }
 
     /**
-     * Creates the required directories for the application to work,
-     * by setting a unique directory name for the current application use
-     * and creating directories required by the application.
-     * @return True if successful, False otherwise
+     * Creates the required directories for processing a video file,
+     * under a unique directory name for the current processing job.
+     * @param chosenFile The video file to process
+     * @return The job's output folder
+     */
+    public static Path createDirectories(File chosenFile) throws IOException {
+        return createDirectories(chosenFile, Paths.get(ApplicationPaths.RESOURCES_OUTPUTS));
+    }
+
+    /**
+     * Creates the required directories for processing a video file under the given outputs folder
+     * @param chosenFile The video file to process
+     * @param outputsRoot The folder containing the output folders of all jobs
+     * @return The job's output folder
      */
-    public static void createDirectories(File chosenFile) throws IOException {
+    public static Path createDirectories(File chosenFile, Path outputsRoot) throws IOException {
+        return createDirectories(chosenFile, outputsRoot, Paths.get(""));
+    }
+
+    /**
+     * Creates the required directories for processing a video file under a sub-folder of the given outputs folder.
+     * The job's folder is created atomically: if a job of a same-named file already took the name, e.g. in the
+     * same second, a numeric suffix is appended, so two jobs never share a folder
+     * @param chosenFile The video file to process
+     * @param outputsRoot The folder containing the output folders of all jobs
+     * @param relativeFolder The sub-folder of outputsRoot receiving the job's folder, e.g. the folder of the
+     *                       video file relative to the input folder
+     * @return The job's output folder
+     * @throws IOException If the folders cannot be created
+     */
+    public static Path createDirectories(File chosenFile, Path outputsRoot, Path relativeFolder) throws IOException {
+        Path parent = outputsRoot.resolve(relativeFolder);
+        Files.createDirectories(parent);
         // Generating unique name of current video file operation
-        ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME = chosenFile.getName().replace(".mp4","")+" "+
+        String uniqueFolderName = chosenFile.getName().replace(".mp4","")+" "+
                 new Date().toString().replace(":","-");
+        Path outputFolder = null;
+        for (int attempt = 1; outputFolder == null; attempt++) {
+            try {
+                outputFolder = Files.createDirectory(parent.resolve(attempt == 1 ? uniqueFolderName : uniqueFolderName + " (" + attempt + ")"));
+            } catch (FileAlreadyExistsException e) {
+                if (attempt == MAX_FOLDER_ATTEMPTS) throw new IOException("Cannot create a unique output folder for " + chosenFile, e);
+            }
+        }
         // Creating directories for application outputs
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.ocr_images.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.detected_areas.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.detection_steps.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.video.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.ocr_preprocessing.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.filter2_too_small.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.filter1_too_high.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.filter3_svm_no_text.name()));
-        Files.createDirectories(Paths.get(ApplicationPaths.RESOURCES_OUTPUTS,ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME, OutputFolderNames.svm_has_text.name()));
+        for (OutputFolderNames folderName : OutputFolderNames.values()) {
+            Files.createDirectories(outputFolder.resolve(folderName.name()));
+        }
+        return outputFolder;
     }
 
     public static boolean validateVideoFileName(File filename) {
@@ -80,60 +115,69 @@ public class FileProcessor
     }
 
     /**
-     * Loads Native Libraries for the detected OS
+     * Loads Native Libraries for the detected OS, reporting them in the log window
      */
     public static void loadLibraries() throws Exception
+    {
+        loadLibraries(message -> Controllers.getLogController().logTextArea.appendText(message));
+    }
+
+    /**
+     * Loads Native Libraries for the detected OS
+     * @param log Receives a line for every loaded library
+     */
+    public static void loadLibraries(Consumer<String> log) throws Exception
     {
         if(SystemUtils.IS_OS_WINDOWS)
         {
             int bit = Integer.parseInt(System.getProperty("sun.arch.data.model"));
             if(bit == 32){
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"opencv_320_32.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenCV for Windows 32 bit\n");
+                log.accept("Loaded OpenCV for Windows 32 bit\n");
 
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"opencv_ffmpeg320_32.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded FFMPEG for Windows 32 bit\n");
+                log.accept("Loaded FFMPEG for Windows 32 bit\n");
 
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"openh264-1.6.0-win32msvc.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenH264 for Windows 32 bit\n");
+                log.accept("Loaded OpenH264 for Windows 32 bit\n");
             }
             else if (bit == 64){
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"opencv_java320_64.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenCV for Windows 64 bit\n");
+                log.accept("Loaded OpenCV for Windows 64 bit\n");
 
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"opencv_ffmpeg320_64.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded FFMPEG for Windows 64 bit\n");
+                log.accept("Loaded FFMPEG for Windows 64 bit\n");
 
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"openh264-1.6.0-win64msvc.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenH264 for Windows 64 bit\n");
+                log.accept("Loaded OpenH264 for Windows 64 bit\n");
             }
             else{
-                Controllers.getLogController().logTextArea.appendText("Unknown Windows bit - trying with 32");
+                log.accept("Unknown Windows bit - trying with 32");
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"opencv_java320_32.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenCV for Windows 32 bit\n");
+                log.accept("Loaded OpenCV for Windows 32 bit\n");
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"openh264-1.6.0-win32msvc.dll").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenH264 for Windows 32 bit\n");
+                log.accept("Loaded OpenH264 for Windows 32 bit\n");
             }
         }
         else if(SystemUtils.IS_OS_MAC){
-            Controllers.getLogController().logTextArea.appendText("This version os the application cannot run on MAC OS yet."+"\n");
+            log.accept("This version os the application cannot run on MAC OS yet."+"\n");
         }
         else if(SystemUtils.IS_OS_LINUX){
             int bit = Integer.parseInt(System.getProperty("sun.arch.data.model"));
             if (bit == 32){
                 //todo add support
-                Controllers.getLogController().logTextArea.appendText("32-bit Linux not supported yet\n");
+                log.accept("32-bit Linux not supported yet\n");
             }
             else if (bit == 64){
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"libopencv_320_64.so").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenCV for Linux 64 bit\n");
+                log.accept("Loaded OpenCV for Linux 64 bit\n");
 
                 System.load(Paths.get(ApplicationPaths.RESOURCES_NATIVES,"libopenh264-1.6.0-linux64.3.so").toString());
-                Controllers.getLogController().logTextArea.appendText("Loaded OpenH264 for Linux 64 bit\n");
+                log.accept("Loaded OpenH264 for Linux 64 bit\n");
             }
             else {
-                Controllers.getLogController().logTextArea.appendText("Unknown Linux bit - trying with 32\n");
-                Controllers.getLogController().logTextArea.appendText("OS not supported yet\n");
+                log.accept("Unknown Linux bit - trying with 32\n");
+                log.accept("OS not supported yet\n");
             }
         }
     }
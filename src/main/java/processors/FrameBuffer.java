@@ -0,0 +1,182 @@
+package processors;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+/**
+ * Moves whole Mat images in and out of Java primitive arrays with a single bulk get/put,
+ * instead of one JNI call (and one double[] allocation) per pixel.
+ * Arrays are laid out row by row with interleaved channels, as OpenCV stores them.
+ * Every getter accepts an optional buffer which is reused when it has the exact required length.
+ */
+public class FrameBuffer
+{
+    /**
+     * Copies a CV_8U Mat into a byte array. Note that Java bytes are signed; use (value & 0xFF)
+     * @param image The CV_8U Mat image, of any number of channels
+     * @param buffer Array to reuse, or null
+     * @return The pixel values
+     */
+    public static byte[] getBytes(Mat image, byte[] buffer)
+    {
+        checkDepth(image, CvType.CV_8U);
+        byte[] data = (buffer != null && buffer.length == length(image)) ? buffer : new byte[length(image)];
+        image.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * Copies a CV_16S Mat into a short array
+     * @param image The CV_16S Mat image, of any number of channels
+     * @param buffer Array to reuse, or null
+     * @return The pixel values
+     */
+    public static short[] getShorts(Mat image, short[] buffer)
+    {
+        checkDepth(image, CvType.CV_16S);
+        short[] data = (buffer != null && buffer.length == length(image)) ? buffer : new short[length(image)];
+        image.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * Copies a CV_32S Mat into an int array
+     * @param image The CV_32S Mat image, of any number of channels
+     * @param buffer Array to reuse, or null
+     * @return The pixel values
+     */
+    public static int[] getInts(Mat image, int[] buffer)
+    {
+        checkDepth(image, CvType.CV_32S);
+        int[] data = (buffer != null && buffer.length == length(image)) ? buffer : new int[length(image)];
+        image.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * Copies a CV_32F Mat into a float array
+     * @param image The CV_32F Mat image, of any number of channels
+     * @param buffer Array to reuse, or null
+     * @return The pixel values
+     */
+    public static float[] getFloats(Mat image, float[] buffer)
+    {
+        checkDepth(image, CvType.CV_32F);
+        float[] data = (buffer != null && buffer.length == length(image)) ? buffer : new float[length(image)];
+        image.get(0, 0, data);
+        return data;
+    }
+
+    /**
+     * Copies any Mat into a double array, converting its values the same way Mat.get(row,col) does
+     * @param image The Mat image
+     * @return The pixel values
+     */
+    public static double[] getDoubles(Mat image)
+    {
+        Mat converted = image;
+        if (image.depth() != CvType.CV_64F) {
+            converted = new Mat();
+            image.convertTo(converted, CvType.CV_64F);
+        }
+        double[] data = new double[length(image)];
+        converted.get(0, 0, data);
+        if (converted != image) converted.release();
+        return data;
+    }
+
+    /**
+     * Creates (if needed) and fills a Mat from a byte array
+     * @param image The destination Mat
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type A CV_8U type
+     * @param data The pixel values, row by row
+     */
+    public static void put(Mat image, int rows, int cols, int type, byte[] data)
+    {
+        checkDepth(type, CvType.CV_8U);
+        image.create(rows, cols, type);
+        image.put(0, 0, data);
+    }
+
+    /**
+     * Creates (if needed) and fills a Mat from a short array
+     * @param image The destination Mat
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type A CV_16S type
+     * @param data The pixel values, row by row
+     */
+    public static void put(Mat image, int rows, int cols, int type, short[] data)
+    {
+        checkDepth(type, CvType.CV_16S);
+        image.create(rows, cols, type);
+        image.put(0, 0, data);
+    }
+
+    /**
+     * Creates (if needed) and fills a Mat from an int array
+     * @param image The destination Mat
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type A CV_32S type
+     * @param data The pixel values, row by row
+     */
+    public static void put(Mat image, int rows, int cols, int type, int[] data)
+    {
+        checkDepth(type, CvType.CV_32S);
+        image.create(rows, cols, type);
+        image.put(0, 0, data);
+    }
+
+    /**
+     * Creates (if needed) and fills a Mat from a float array
+     * @param image The destination Mat
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type A CV_32F type
+     * @param data The pixel values, row by row
+     */
+    public static void put(Mat image, int rows, int cols, int type, float[] data)
+    {
+        checkDepth(type, CvType.CV_32F);
+        image.create(rows, cols, type);
+        image.put(0, 0, data);
+    }
+
+    /**
+     * Creates (if needed) and fills a Mat of any type from a double array,
+     * saturating the values the same way Mat.put(row,col,value) does
+     * @param image The destination Mat
+     * @param rows Number of rows
+     * @param cols Number of columns
+     * @param type The Mat type
+     * @param data The pixel values, row by row
+     */
+    public static void put(Mat image, int rows, int cols, int type, double[] data)
+    {
+        image.create(rows, cols, type);
+        image.put(0, 0, data);
+    }
+
+    /**
+     * @return The number of primitive values stored in the image (pixels * channels)
+     */
+    public static int length(Mat image)
+    {
+        return (int) image.total() * image.channels();
+    }
+
+    private static void checkDepth(Mat image, int depth)
+    {
+        checkDepth(image.type(), depth);
+    }
+
+    private static void checkDepth(int type, int depth)
+    {
+        if (CvType.depth(type) != depth) {
+            throw new IllegalArgumentException("Unexpected Mat type " + CvType.typeToString(type));
+        }
+    }
+}
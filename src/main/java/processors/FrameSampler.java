@@ -0,0 +1,157 @@
+package processors;
+
+import entities.ProcessingSettings;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides which decoded frames are analysed. The frames between two analysed frames are not processed;
+ * they are written to the video using the text blocks of the analysed frame before them.
+ *
+ * In adaptive mode, every frame is compared against a small grayscale thumbnail of the last analysed frame.
+ * While the scene stays static the stride doubles, up to the maximum stride; a frame that differs more than the
+ * threshold, or a change in the number of detected text blocks, starts a new group with the minimum stride.
+ * Otherwise, every 6th frame is analysed, as before.
+ *
+ * Grouping runs on the decoding thread; text block counts are reported from the encoding stage.
+ */
+public class FrameSampler
+{
+    private static final int FIXED_STRIDE = 6;
+    private static final int THUMBNAIL_WIDTH = 64;
+
+    private final boolean adaptive;
+    private final int minStride;
+    private final int maxStride;
+    private final double threshold;
+
+    // Created with the first analysed frame, only in adaptive mode
+    private Mat thumbnail;
+    private Mat reference;
+    private Mat difference;
+    private int stride;
+    private int analysedFrames;
+    private int sceneChanges;
+
+    // Written by the encoding stage
+    private volatile boolean textBlocksChanged;
+    private int lastTextBlockCount = -1;
+
+    /**
+     * @param settings Provides the sampling mode, strides and scene change threshold
+     */
+    public FrameSampler(ProcessingSettings settings)
+    {
+        this(settings.isAdaptiveSampling(), settings.getMinSampleStride(), settings.getMaxSampleStride(),
+                settings.getSceneChangeThreshold());
+    }
+
+    FrameSampler(boolean adaptive, int minStride, int maxStride, double threshold)
+    {
+        this.adaptive = adaptive;
+        this.minStride = minStride;
+        this.maxStride = Math.max(minStride, maxStride);
+        this.threshold = threshold;
+        this.stride = minStride;
+    }
+
+    /**
+     * Starts a new group of frames with the given analysed frame
+     * @param frame The decoded frame which will be analysed
+     */
+    public void startGroup(Mat frame)
+    {
+        analysedFrames++;
+        if (!adaptive) return;
+        if (reference == null) {
+            thumbnail = new Mat();
+            reference = new Mat();
+            difference = new Mat();
+        }
+        computeThumbnail(frame, reference);
+    }
+
+    /**
+     * @param frame The next decoded frame
+     * @param groupLength The number of frames already in the group, including the analysed one
+     * @return True if the frame only reuses the text blocks of the group, False if it should be analysed
+     */
+    public boolean extendsGroup(Mat frame, int groupLength)
+    {
+        return extendsGroup(groupLength, () -> {
+            computeThumbnail(frame, thumbnail);
+            Core.absdiff(thumbnail, reference, difference);
+            return Core.mean(difference).val[0];
+        });
+    }
+
+    /**
+     * The sampling policy, measuring the frame's change only when it can make a difference
+     */
+    boolean extendsGroup(int groupLength, DoubleSupplier change)
+    {
+        if (!adaptive) return groupLength < FIXED_STRIDE;
+        if (groupLength < minStride) return true;
+        if (textBlocksChanged) {
+            textBlocksChanged = false;
+            stride = minStride;
+            return false;
+        }
+        if (groupLength >= stride) {
+            // The scene remained static for the whole stride
+            stride = Math.min(maxStride, stride * 2);
+            return false;
+        }
+        if (change.getAsDouble() > threshold) {
+            sceneChanges++;
+            stride = minStride;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called in frame order, with the text blocks found in every analysed frame
+     * @param textBlockCount The number of text blocks of the analysed frame
+     */
+    public void reportTextBlocks(int textBlockCount)
+    {
+        if (lastTextBlockCount >= 0 && textBlockCount != lastTextBlockCount) {
+            textBlocksChanged = true;
+        }
+        lastTextBlockCount = textBlockCount;
+    }
+
+    /**
+     * @return The number of groups started, i.e. the frames that were analysed
+     */
+    public int getAnalysedFrames() {
+        return analysedFrames;
+    }
+
+    /**
+     * @return The number of groups ended early because the scene changed
+     */
+    public int getSceneChanges() {
+        return sceneChanges;
+    }
+
+    public void release()
+    {
+        if (reference == null) return;
+        thumbnail.release();
+        reference.release();
+        difference.release();
+    }
+
+    private static void computeThumbnail(Mat frame, Mat destination)
+    {
+        int height = Math.max(1, frame.height() * THUMBNAIL_WIDTH / Math.max(1, frame.width()));
+        Imgproc.resize(frame, destination, new Size(THUMBNAIL_WIDTH, height), 0, 0, Imgproc.INTER_AREA);
+        if (destination.channels() > 1) Imgproc.cvtColor(destination, destination, Imgproc.COLOR_BGR2GRAY);
+    }
+}
@@ -1,7 +1,8 @@
 package processors;
 
 import entities.OutputFolderNames;
-import svm.SVM;
+import entities.ProcessedFrame;
+import svm.BlockClassifier;
 import org.opencv.core.*;
 import org.opencv.imgproc.Imgproc;
 import java.util.ArrayList;
@@ -16,52 +17,85 @@ public class ImageProcessor
     /**
      * Crops areas from the original image which correspond to the given Rect blocks
      * @param textBlocks The Rect text blocks list
+     * @param frame The original image
      * @return A list of Mat crops
      */
-    public static List<Mat> getCroppedTextBlocks(List<Rect> textBlocks)
+    public static List<Mat> getCroppedTextBlocks(List<Rect> textBlocks, Mat frame)
     {
         List<Mat> textRegions = new ArrayList<>();
         for (Rect r : textBlocks) {
-            Mat crop = new Mat(VideoProcessor.getInput(),r);
+            Mat crop = new Mat(frame,r);
             textRegions.add(crop);
         }
         return textRegions;
     }
 
     /**
-     * Finds the text block areas by filtering the connected components of the dilated Mat image.
-     * First, finds the candidate text blocks and then filters them.
-     * @param dilated The dilated Mat image
-     * @return A List of Rect representing the finalist text block areas
+     * Finds the text block areas of a frame by filtering the connected components of its dilated image.
+     * First, finds the candidate text blocks, drops the ones rejected by the pre-filters and then classifies
+     * the rest as one batch. Sets the text blocks of the frame, along with the candidate and early exit counts
+     * of the classification.
+     * @param frame The frame, with its dilated image, and its edges if the pre-filters use them
+     * @param imageWriter Receives the accepted and rejected candidate blocks
+     * @param preFilters Rejects the obvious non-text candidates before the SVM
+     * @throws InterruptedException If the thread was interrupted while the candidate blocks were classified
      */
-    public static List<Rect> findTextBlocks(Mat dilated)
+    public static void findTextBlocks(ProcessedFrame frame, ImageWriter imageWriter, PreFilterCascade preFilters)
+            throws InterruptedException
     {
+        Mat dilated = frame.getDilated();
         Mat labels = new Mat();
         Mat stats = new Mat();
         Mat centroids = new Mat();
         int numberOfLabels = Imgproc.connectedComponentsWithStats(dilated,labels,stats,centroids,8, CvType.CV_32S);
 
-        List<Rect> textBlocks = new ArrayList<>();
+        List<Rect> candidates = new ArrayList<>();
+        List<Mat> crops = new ArrayList<>();
+        List<Integer> preFilterResults = new ArrayList<>();
+        int[] statsArray = FrameBuffer.getInts(stats, null);
+        int statsColumns = stats.cols();
 
         // Label 0 is considered to be the background label, so we skip it
         for (int i = 1; i < numberOfLabels; i++)
         {
             // stats columns; [0-4] : [left top width height area}
-            Rect textBlock = new Rect(new Point(stats.get(i,0)[0],stats.get(i,1)[0]),new Size(stats.get(i,2)[0],
-                    stats.get(i,3)[0]));
-            Mat crop = new Mat(VideoProcessor.getInput(),textBlock);
+            int row = i * statsColumns;
+            Rect textBlock = new Rect(statsArray[row + Imgproc.CC_STAT_LEFT], statsArray[row + Imgproc.CC_STAT_TOP],
+                    statsArray[row + Imgproc.CC_STAT_WIDTH], statsArray[row + Imgproc.CC_STAT_HEIGHT]);
+            Mat crop = new Mat(frame.getInput(),textBlock);
             if ( Double.compare(textBlock.width / textBlock.height, 1.0) >= 0) { // FILTER 1
-                if (Double.compare(stats.get(i,4)[0],dilated.height() * dilated.width() * 0.002 ) > 0){ // FILTER 2
-                    Imgproc.cvtColor(crop, crop, Imgproc.COLOR_RGB2GRAY, 0);
-                    Imgproc.resize(crop, crop, new Size(100,50), 4.0, 4.0, Imgproc.INTER_LINEAR);
-                    if (SVM.blockContainsText(crop)){ // FILTER 3
-                        ImageWriter.writeOutputImage(crop, OutputFolderNames.svm_has_text);
-                        textBlocks.add(textBlock);
-                    } else ImageWriter.writeOutputImage(crop, OutputFolderNames.filter3_svm_no_text);
-                } else ImageWriter.writeOutputImage(crop, OutputFolderNames.filter2_too_small);
-            } else ImageWriter.writeOutputImage(crop, OutputFolderNames.filter1_too_high);
+                if (Double.compare(statsArray[row + Imgproc.CC_STAT_AREA],dilated.height() * dilated.width() * 0.002 ) > 0){ // FILTER 2
+                    int rejections = preFilters.checkComponent(textBlock, statsArray[row + Imgproc.CC_STAT_AREA], frame.getEdges());
+                    if (!preFilters.isRejected(rejections)) {
+                        Imgproc.cvtColor(crop, crop, Imgproc.COLOR_RGB2GRAY, 0);
+                        Imgproc.resize(crop, crop, new Size(100,50), 4.0, 4.0, Imgproc.INTER_LINEAR);
+                        rejections = preFilters.checkBlock(crop, rejections);
+                    }
+                    if (preFilters.isRejected(rejections)) {
+                        preFilters.count(rejections, false);
+                        imageWriter.writeOutputImage(crop, OutputFolderNames.prefilter_rejected);
+                    } else {
+                        candidates.add(textBlock);
+                        crops.add(crop);
+                        preFilterResults.add(rejections);
+                    }
+                } else imageWriter.writeOutputImage(crop, OutputFolderNames.filter2_too_small);
+            } else imageWriter.writeOutputImage(crop, OutputFolderNames.filter1_too_high);
+        }
+
+        BlockClassifier.Batch verdicts = BlockClassifier.getShared().classify(crops); // FILTER 3
+        List<Rect> textBlocks = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++)
+        {
+            preFilters.count(preFilterResults.get(i), verdicts.containsText(i));
+            if (verdicts.containsText(i)){
+                imageWriter.writeOutputImage(crops.get(i), OutputFolderNames.svm_has_text);
+                textBlocks.add(candidates.get(i));
+            } else imageWriter.writeOutputImage(crops.get(i), OutputFolderNames.filter3_svm_no_text);
         }
-        return textBlocks;
+        frame.setTextBlocks(textBlocks);
+        frame.setCandidateBlocks(candidates.size());
+        frame.setEarlyExits(verdicts.getEarlyExits());
     }
 
     /**
@@ -86,14 +120,10 @@ public class ImageProcessor
      */
     public static Mat thresholdImageWithKmeans(Mat image)
     {
-        Mat data = new Mat(image.height() * image.width(), 1, CvType.CV_32FC1);
-        int k = 0;
-        for (int i = 0; i < image.height(); i++) {
-            for (int j = 0; j < image.width(); j++) {
-                data.put(k, 0, image.get(i, j)[0]);
-                k++;
-            }
-        }
+        // One sample per pixel; reshaping the converted image avoids copying the pixels one by one
+        Mat floatImage = new Mat();
+        image.convertTo(floatImage, CvType.CV_32F);
+        Mat data = floatImage.reshape(1, image.height() * image.width());
         int clusters = 2;
         Mat labels = new Mat();
 
@@ -119,20 +149,14 @@ public class ImageProcessor
      */
     public static Mat convertLabelsToBinary(Mat labels, Mat image)
     {
-        Mat binary = new Mat(image.height(), image.width(), CvType.CV_8UC1);
-        int k=0;
-        for (int i=0; i<binary.height(); i++)
+        int[] labelArray = FrameBuffer.getInts(labels, null);
+        byte[] pixels = new byte[image.height() * image.width()];
+        for (int k=0; k < pixels.length; k++)
         {
-            for (int j=0; j<binary.width(); j++)
-            {
-                if (Double.compare(labels.get(k,0)[0],1.0) == 0) {
-                    binary.put(i,j,255.0);
-                } else {
-                    binary.put(i,j,0.0);
-                }
-                k++;
-            }
+            pixels[k] = (labelArray[k] == 1) ? (byte) 255 : 0;
         }
+        Mat binary = new Mat();
+        FrameBuffer.put(binary, image.height(), image.width(), CvType.CV_8UC1, pixels);
         return binary;
     }
 }
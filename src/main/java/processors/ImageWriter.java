@@ -1,44 +1,280 @@
 package processors;
 
-import entities.ApplicationPaths;
+import entities.ImageDropPolicy;
 import entities.OutputFolderNames;
-import org.jetbrains.annotations.NotNull;
+import entities.ProcessedFrame;
+import entities.ProcessingSettings;
 import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
 import org.opencv.core.MatOfInt;
 import org.opencv.imgcodecs.Imgcodecs;
-import java.io.File;
-import java.nio.file.Paths;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Created by arxa on 26/2/2017.
+ *
+ * Exports the intermediate images of the processing steps for debugging.
+ * The pipeline threads only copy an image into a bounded queue; a single background thread encodes
+ * the copies to PNG and writes them, either as separate files in the output subfolders or as entries
+ * of a single images.zip file, whose central directory indexes them by folder and number.
+ * When the queue is full the configured {@link ImageDropPolicy} applies, so a slow disk does not
+ * slow down the processing unless BLOCK is chosen.
  */
-
 public class ImageWriter
 {
-    private static boolean writingEnabled = false;
-    private static int fileCounter;
+    static final String CONTAINER_FILE_NAME = "images.zip";
+
+    // Fast PNG compression; encoding, not writing, is the expensive part
+    private static final int PNG_COMPRESSION = 1;
+    private static final ImageWriter DISABLED = new ImageWriter();
+    // Queued by close, after the last image
+    private static final PendingImage END = new PendingImage(null, null, -1);
+
+    private final Path outputFolder;
+    private final boolean writingEnabled;
+    private final Set<OutputFolderNames> folders;
+    private final int frameInterval;
+    private final ImageDropPolicy dropPolicy;
+    private final boolean zipped;
+    private final BlockingQueue<PendingImage> queue;
+    private final AtomicInteger fileCounter = new AtomicInteger();
+    private final AtomicInteger writtenImages = new AtomicInteger();
+    private final AtomicInteger droppedImages = new AtomicInteger();
+    private Thread writerThread;
+    private volatile IOException writeError;
+    private volatile boolean writerStopped;
+    private volatile boolean closed;
 
-    @NotNull
-    public static File writeTextBlock(Mat frame)
+    /**
+     * @param outputFolder The job's output folder, as created by FileProcessor.createDirectories
+     * @param settings Whether, which and how the intermediate images are exported
+     */
+    public ImageWriter(Path outputFolder, ProcessingSettings settings)
     {
-        String filePath = Paths.get(ApplicationPaths.RESOURCES_OUTPUTS, ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME,
-                OutputFolderNames.ocr_images.name(), fileCounter++ + ".png").toAbsolutePath().toString();
-        MatOfInt params = new MatOfInt(Imgcodecs.CV_IMWRITE_PNG_COMPRESSION);
-        Imgcodecs.imwrite(filePath,frame,params);
-        return new File(filePath);
+        this.outputFolder = outputFolder;
+        this.writingEnabled = settings.isExportImages() && !settings.getExportFolders().isEmpty();
+        this.folders = settings.getExportFolders();
+        this.frameInterval = settings.getExportFrameInterval();
+        this.dropPolicy = settings.getExportDropPolicy();
+        this.zipped = settings.isExportToZip();
+        this.queue = new ArrayBlockingQueue<>(settings.getExportQueueCapacity());
     }
 
-    public static void writeOutputImage(Mat image,OutputFolderNames outputFolderName){
-        if (!writingEnabled) return;
-        String filePath = Paths.get(ApplicationPaths.RESOURCES_OUTPUTS, ApplicationPaths.UNIQUE_OUTPUT_FOLDER_NAME,
-                outputFolderName.name(), fileCounter++ + ".png").toAbsolutePath().toString();
-        MatOfInt params = new MatOfInt(Imgcodecs.CV_IMWRITE_PNG_COMPRESSION);
-        Imgcodecs.imwrite(filePath,image,params);
+    private ImageWriter()
+    {
+        this.outputFolder = null;
+        this.writingEnabled = false;
+        this.folders = Collections.emptySet();
+        this.frameInterval = 1;
+        this.dropPolicy = ImageDropPolicy.DROP_NEWEST;
+        this.zipped = false;
+        this.queue = null;
     }
 
-    public static void setWritingEnabled(boolean writingEnabled) {
-        ImageWriter.writingEnabled = writingEnabled;
+    /**
+     * @return True if images are exported at all
+     */
+    public boolean isEnabled() {
+        return writingEnabled;
+    }
+
+    /**
+     * Decides whether the images of an analysed frame are exported.
+     * Called in frame order by the decoding thread of each frame range
+     * @param frameNumber The number of the analysed frame
+     * @param nextSampledFrame The first frame number eligible for export, as returned for the previous analysed frame
+     *                         of the range, or the first frame number of the range
+     * @return The first frame number eligible for export after this frame, if this frame is exported,
+     *         or nextSampledFrame unchanged
+     */
+    public int sampleFrame(int frameNumber, int nextSampledFrame)
+    {
+        if (!writingEnabled || frameNumber < nextSampledFrame) return nextSampledFrame;
+        return frameNumber + frameInterval;
+    }
+
+    /**
+     * @param frame A frame in the pipeline
+     * @return This writer if the frame's images are exported, otherwise a writer which discards every image
+     */
+    public ImageWriter forFrame(ProcessedFrame frame) {
+        return frame.isExportingImages() ? this : DISABLED;
+    }
+
+    /**
+     * Queues a copy of the image for writing; the caller may change or release the image right after
+     * @param image The image
+     * @param outputFolderName The kind of image, naming the folder it is written to
+     */
+    public void writeOutputImage(Mat image,OutputFolderNames outputFolderName){
+        if (!writingEnabled || !folders.contains(outputFolderName) || closed) return;
+        PendingImage pending = new PendingImage(image.clone(), outputFolderName, fileCounter.getAndIncrement());
+        startWriter();
+        switch (dropPolicy) {
+            case BLOCK:
+                boolean queued = false;
+                try {
+                    // Stops waiting if the writer failed
+                    while (!writerStopped && !(queued = queue.offer(pending, 100, TimeUnit.MILLISECONDS))) {
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (!queued) {
+                    pending.image.release();
+                    droppedImages.incrementAndGet();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(pending)) {
+                    PendingImage oldest = queue.poll();
+                    if (oldest != null) {
+                        oldest.image.release();
+                        droppedImages.incrementAndGet();
+                    }
+                }
+                break;
+            default:
+                if (!queue.offer(pending)) {
+                    pending.image.release();
+                    droppedImages.incrementAndGet();
+                }
+        }
+    }
+
+    /**
+     * Writes the queued images and stops the background thread. Later calls do nothing
+     * @throws IOException If any image could not be written
+     * @throws InterruptedException If the calling thread was interrupted while waiting for the queued images
+     */
+    public void close() throws IOException, InterruptedException
+    {
+        Thread thread;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            thread = writerThread;
+        }
+        if (thread != null) {
+            while (!writerStopped && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                // The writer failed if it stopped before the end of the queue
+            }
+            thread.join();
+        }
+        if (writeError != null) throw writeError;
     }
-}
 
+    /**
+     * @return The number of images written so far
+     */
+    public int getWrittenImages() {
+        return writtenImages.get();
+    }
+
+    /**
+     * @return The number of images discarded because the queue was full
+     */
+    public int getDroppedImages() {
+        return droppedImages.get();
+    }
+
+    private synchronized void startWriter()
+    {
+        if (writerThread != null || closed) return;
+        writerThread = new Thread(this::writeImages, "image-writer-" + outputFolder.getFileName());
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Background thread: writes the queued images until the writer is closed, then writes the remaining ones
+     */
+    private void writeImages()
+    {
+        ZipOutputStream zip = null;
+        try {
+            if (zipped) {
+                zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(outputFolder.resolve(CONTAINER_FILE_NAME))));
+                // Stored entries: PNG data does not compress any further
+                zip.setMethod(ZipOutputStream.STORED);
+            }
+            PendingImage pending;
+            while ((pending = queue.take()) != END) write(pending, zip);
+        } catch (IOException e) {
+            writeError = e;
+        } catch (InterruptedException e) {
+            // Only happens if someone else interrupts the thread; give up on the queued images
+        } finally {
+            writerStopped = true;
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                    if (writeError == null) writeError = e;
+                }
+            }
+            PendingImage pending;
+            while ((pending = queue.poll()) != null) {
+                if (pending != END) pending.image.release();
+            }
+        }
+    }
+
+    private void write(PendingImage pending, ZipOutputStream zip) throws IOException
+    {
+        MatOfByte png = new MatOfByte();
+        MatOfInt params = new MatOfInt(Imgcodecs.CV_IMWRITE_PNG_COMPRESSION, PNG_COMPRESSION);
+        try {
+            Imgcodecs.imencode(".png", pending.image, png, params);
+            byte[] bytes = png.toArray();
+            String name = pending.folder.name() + "/" + pending.number + ".png";
+            if (zip != null) {
+                ZipEntry entry = new ZipEntry(name);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                entry.setSize(bytes.length);
+                entry.setCrc(crc.getValue());
+                zip.putNextEntry(entry);
+                zip.write(bytes);
+                zip.closeEntry();
+            } else {
+                try (OutputStream file = Files.newOutputStream(outputFolder.resolve(name))) {
+                    file.write(bytes);
+                }
+            }
+            writtenImages.incrementAndGet();
+        } finally {
+            png.release();
+            params.release();
+            pending.image.release();
+        }
+    }
 
+    private static class PendingImage
+    {
+        private final Mat image;
+        private final OutputFolderNames folder;
+        private final int number;
+
+        private PendingImage(Mat image, OutputFolderNames folder, int number)
+        {
+            this.image = image;
+            this.folder = folder;
+            this.number = number;
+        }
+    }
+}
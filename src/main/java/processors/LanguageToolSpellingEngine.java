@@ -0,0 +1,82 @@
+package processors;
+
+import org.languagetool.JLanguageTool;
+import org.languagetool.language.BritishEnglish;
+import org.languagetool.rules.RuleMatch;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The accurate spelling mode: applies the first suggestion of the LanguageTool rules, up to three times per word.
+ * Checking is slow, so the corrections are memoized in the shared {@link SpellingCache}.
+ */
+public class LanguageToolSpellingEngine implements SpellingEngine
+{
+    private static final LanguageToolSpellingEngine shared = new LanguageToolSpellingEngine();
+
+    /*
+     JLanguageTool is not thread-safe and slow to create, so every check borrows an instance from this pool.
+     The instances outlive the OCR threads of a job, which keeps the per-video overhead low when processing many videos.
+    */
+    private final Queue<JLanguageTool> languageTools = new ConcurrentLinkedQueue<>();
+
+    private LanguageToolSpellingEngine()
+    {
+    }
+
+    public static LanguageToolSpellingEngine getShared() {
+        return shared;
+    }
+
+    @Override
+    public String correct(String word) throws IOException
+    {
+        SpellingCache cache = SpellingCache.getShared();
+        String corrected = cache.get(word);
+        if (corrected != null) return corrected;
+        // Failures are not cached, the next sighting of the word is checked again
+        corrected = correctSpelling(word);
+        cache.put(word, corrected);
+        return corrected;
+    }
+
+    @Override
+    public String getDescription() {
+        return "LanguageTool";
+    }
+
+    private String correctSpelling(String ocrText) throws IOException {
+        List<RuleMatch> matches;
+        StringBuffer buffer = new StringBuffer(ocrText);
+        int iterations = 0;
+        while (true) {
+            if (++iterations > 3) return buffer.toString();
+            matches = check(buffer.toString());
+            if (!matches.isEmpty()){
+                if (!matches.get(0).getSuggestedReplacements().isEmpty()){
+                    try {
+                        buffer.replace(matches.get(0).getFromPos(), matches.get(0).getToPos(), matches.get(0).getSuggestedReplacements().get(0));
+                    } catch (StringIndexOutOfBoundsException ignored) {}
+                } else {
+                    return " ";
+                }
+            } else {
+                return buffer.toString();
+            }
+        }
+    }
+
+    private List<RuleMatch> check(String text) throws IOException
+    {
+        JLanguageTool languageTool = languageTools.poll();
+        if (languageTool == null) languageTool = new JLanguageTool(new BritishEnglish());
+        try {
+            return languageTool.check(text);
+        } finally {
+            languageTools.offer(languageTool);
+        }
+    }
+}
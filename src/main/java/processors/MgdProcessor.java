@@ -0,0 +1,94 @@
+package processors;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.util.Arrays;
+
+/**
+ * Linear-time implementation of the MaximumGradientDifference(MGD) operator.
+ * Produces exactly the same values as {@link PixelProcessor#getMgdArray(Mat)}, but slides a monotonic
+ * max/min window along each row instead of re-scanning all 21 pixels for every pixel,
+ * and works directly on the CV_16S Laplacian data through reusable primitive buffers.
+ * An instance is not thread-safe; use one per processing thread.
+ */
+public class MgdProcessor
+{
+    // The MGD window spans 10 pixels on each side of the target pixel
+    private static final int WINDOW_RADIUS = 10;
+    private static final int WINDOW_SIZE = 2 * WINDOW_RADIUS + 1;
+
+    private short[] laplaceBuffer = new short[0];
+    private short[] mgdBuffer = new short[0];
+    private int[] maxDeque = new int[0];
+    private int[] minDeque = new int[0];
+
+    /**
+     * Applies the MGD operator on a Laplacian image
+     * @param laplaceImage The CV_16S single channel Laplacian image
+     * @param mgdImage The CV_16S destination image. It is (re)allocated if needed
+     */
+    public void apply(Mat laplaceImage, Mat mgdImage)
+    {
+        if (laplaceImage.type() != CvType.CV_16SC1) {
+            throw new IllegalArgumentException("MGD expects a CV_16SC1 image, got " + CvType.typeToString(laplaceImage.type()));
+        }
+        int height = laplaceImage.height();
+        int width = laplaceImage.width();
+        int length = height * width;
+        if (mgdBuffer.length != length) {
+            mgdBuffer = new short[length];
+        }
+        if (maxDeque.length < width) {
+            maxDeque = new int[width];
+            minDeque = new int[width];
+        }
+        laplaceBuffer = FrameBuffer.getShorts(laplaceImage, laplaceBuffer);
+        computeMgd(laplaceBuffer, mgdBuffer, width, height, maxDeque, minDeque);
+        FrameBuffer.put(mgdImage, height, width, CvType.CV_16SC1, mgdBuffer);
+    }
+
+    /**
+     * Calculates the MGD number of every pixel of a row-major image.
+     * The first and the last 10 columns of every row are set to 0,
+     * exactly as the original per-pixel implementation does.
+     * @param laplace The source pixels, row by row
+     * @param mgd The destination pixels, of the same length as the source
+     * @param width The image width
+     * @param height The image height
+     * @param maxDeque Scratch buffer of at least width elements
+     * @param minDeque Scratch buffer of at least width elements
+     */
+    public static void computeMgd(short[] laplace, short[] mgd, int width, int height, int[] maxDeque, int[] minDeque)
+    {
+        for (int i = 0; i < height; i++)
+        {
+            int rowStart = i * width;
+            int rowEnd = rowStart + width;
+            Arrays.fill(mgd, rowStart, Math.min(rowEnd, rowStart + WINDOW_RADIUS), (short) 0);
+            Arrays.fill(mgd, Math.max(rowStart, rowEnd - WINDOW_RADIUS), rowEnd, (short) 0);
+
+            // Deques hold column indices whose values are monotonic (decreasing for max, increasing for min)
+            int maxHead = 0, maxTail = 0;
+            int minHead = 0, minTail = 0;
+            for (int k = 0; k < width; k++)
+            {
+                short value = laplace[rowStart + k];
+                while (maxTail > maxHead && laplace[rowStart + maxDeque[maxTail - 1]] <= value) maxTail--;
+                maxDeque[maxTail++] = k;
+                while (minTail > minHead && laplace[rowStart + minDeque[minTail - 1]] >= value) minTail--;
+                minDeque[minTail++] = k;
+
+                // Drop the indices that slid out of the window [k-20, k]
+                if (maxDeque[maxHead] <= k - WINDOW_SIZE) maxHead++;
+                if (minDeque[minHead] <= k - WINDOW_SIZE) minHead++;
+
+                if (k >= WINDOW_SIZE - 1) {
+                    int difference = laplace[rowStart + maxDeque[maxHead]] - laplace[rowStart + minDeque[minHead]];
+                    // Saturate like Mat.put does when storing the double result into a CV_16S image
+                    mgd[rowStart + k - WINDOW_RADIUS] = (short) Math.min(difference, Short.MAX_VALUE);
+                }
+            }
+        }
+    }
+}
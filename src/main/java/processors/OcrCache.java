@@ -0,0 +1,185 @@
+package processors;
+
+import entities.RecognizedWord;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used, cache of OCR results, keyed by a perceptual hash of the binarized text block.
+ * Recurring overlays such as logos, lower thirds and scoreboards are read by OCR only the first time they appear.
+ * Lookups accept hashes within a Hamming distance of a cached one, so small binarization differences still hit.
+ *
+ * Thread-safe: shared by all the OCR workers of a job.
+ */
+public class OcrCache
+{
+    // Difference hash grid; text blocks are wide, so the grid is too
+    private static final int HASH_COLUMNS = 32;
+    private static final int HASH_ROWS = 8;
+    private static final int HASH_WORDS = HASH_COLUMNS * HASH_ROWS / 64;
+
+    private final int capacity;
+    private final int tolerance;
+    private final LinkedHashMap<Key, List<RecognizedWord>> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param capacity Maximum number of cached text blocks
+     * @param tolerance Maximum number of differing hash bits (out of 256) for a cached block to match
+     */
+    public OcrCache(int capacity, int tolerance)
+    {
+        this.capacity = capacity;
+        this.tolerance = tolerance;
+        this.entries = new LinkedHashMap<Key, List<RecognizedWord>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<RecognizedWord>> eldest) {
+                if (size() <= OcrCache.this.capacity) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Computes the difference hash of a text block: every bit tells whether a cell of a downscaled
+     * grid, laid over the bounding box of the text, is brighter than its right neighbour.
+     * The aspect ratio of the text is part of the hash, so texts of very different shapes never match.
+     * @param textBlock The binarized, single channel, text block
+     * @return The hash
+     */
+    public static long[] hash(Mat textBlock)
+    {
+        // k-means labels the text as either black or white; bring the block to white text on a black background
+        Mat text = new Mat();
+        if (Core.countNonZero(textBlock) * 2 > textBlock.total()) {
+            Core.bitwise_not(textBlock, text);
+        } else {
+            textBlock.copyTo(text);
+        }
+        // Hash only the text itself, so a few pixels of jitter in the block boundaries do not change the hash
+        MatOfPoint textPixels = new MatOfPoint();
+        Core.findNonZero(text, textPixels);
+        Rect bounds = textPixels.empty() ? new Rect(0, 0, text.width(), text.height()) : Imgproc.boundingRect(textPixels);
+        textPixels.release();
+        Mat small = new Mat();
+        Imgproc.resize(new Mat(text, bounds), small,
+                new Size(HASH_COLUMNS + 1, HASH_ROWS), 0, 0, Imgproc.INTER_AREA);
+        byte[] pixels = FrameBuffer.getBytes(small, null);
+        small.release();
+        text.release();
+
+        long[] hash = new long[HASH_WORDS + 1];
+        int bit = 0;
+        for (int row = 0; row < HASH_ROWS; row++) {
+            for (int column = 0; column < HASH_COLUMNS; column++) {
+                int index = row * (HASH_COLUMNS + 1) + column;
+                if ((pixels[index] & 0xFF) > (pixels[index + 1] & 0xFF)) {
+                    hash[bit / 64] |= 1L << (bit % 64);
+                }
+                bit++;
+            }
+        }
+        // Aspect ratio in quarter steps of its base 2 logarithm
+        hash[HASH_WORDS] = Math.round(4 * Math.log((double) bounds.width / Math.max(1, bounds.height)) / Math.log(2));
+        return hash;
+    }
+
+    /**
+     * @param hash The hash of a text block
+     * @return The cached words of the same or a similar text block, or null
+     */
+    public synchronized List<RecognizedWord> get(long[] hash)
+    {
+        Key key = new Key(hash);
+        List<RecognizedWord> words = entries.get(key);
+        if (words == null && tolerance > 0) {
+            Key closest = null;
+            int closestDistance = tolerance + 1;
+            for (Key cached : entries.keySet()) {
+                int distance = cached.distance(key);
+                if (distance < closestDistance) {
+                    closest = cached;
+                    closestDistance = distance;
+                }
+            }
+            // Accessing the entry marks it as recently used
+            if (closest != null) words = entries.get(closest);
+        }
+        if (words == null) misses++;
+        else hits++;
+        return words;
+    }
+
+    /**
+     * @param hash The hash of a text block
+     * @param words The words extracted from it, after confidence filtering and spelling correction
+     */
+    public synchronized void put(long[] hash, List<RecognizedWord> words)
+    {
+        if (capacity < 1) return;
+        entries.put(new Key(hash), Collections.unmodifiableList(new ArrayList<>(words)));
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class Key
+    {
+        private final long[] hash;
+
+        private Key(long[] hash)
+        {
+            this.hash = hash;
+        }
+
+        /**
+         * @return The Hamming distance of the two hashes, or MAX_VALUE if the aspect ratios differ
+         */
+        private int distance(Key other)
+        {
+            if (hash[HASH_WORDS] != other.hash[HASH_WORDS]) return Integer.MAX_VALUE;
+            int distance = 0;
+            for (int i = 0; i < HASH_WORDS; i++) {
+                distance += Long.bitCount(hash[i] ^ other.hash[i]);
+            }
+            return distance;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(hash, ((Key) other).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(hash);
+        }
+    }
+}
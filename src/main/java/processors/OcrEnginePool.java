@@ -0,0 +1,128 @@
+package processors;
+
+import org.bytedeco.javacpp.tesseract;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Initialized OCR engines, kept per language for the lifetime of the JVM.
+ * Initializing an engine loads its traineddata, so engines are checked out for a text block
+ * and checked back in right after, and are reused by every worker thread and every job.
+ * At most {@link #setMaxEngines(int) maxEngines} engines exist per language; further checkouts wait.
+ */
+public class OcrEnginePool
+{
+    private static OcrEnginePool shared;
+
+    private final Map<String, Deque<tesseract.TessBaseAPI>> idleEngines = new HashMap<>();
+    private final Map<String, Integer> createdEngines = new HashMap<>();
+    private int maxEngines = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private boolean closed;
+
+    /**
+     * @return The pool shared by all jobs; its engines are ended when the JVM shuts down
+     */
+    public static synchronized OcrEnginePool getShared()
+    {
+        if (shared == null) {
+            shared = new OcrEnginePool();
+            OcrEnginePool pool = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "ocr-engine-pool-shutdown"));
+        }
+        return shared;
+    }
+
+    /**
+     * @param maxEngines The maximum number of engines per language. Lowering it does not end existing engines
+     */
+    public synchronized void setMaxEngines(int maxEngines)
+    {
+        if (maxEngines < 1) throw new IllegalArgumentException("Value must be positive: " + maxEngines);
+        this.maxEngines = maxEngines;
+        notifyAll();
+    }
+
+    public synchronized int getMaxEngines() {
+        return maxEngines;
+    }
+
+    /**
+     * Checks out an engine, initializing a new one if none is idle and the limit allows it
+     * @param language The tesseract language code, e.g. "eng"
+     * @return An initialized engine, to be given back with {@link #release(String, tesseract.TessBaseAPI)}
+     * @throws InterruptedException If the thread was interrupted while waiting for an engine
+     * @throws Exception If a new engine failed to initialize
+     */
+    public tesseract.TessBaseAPI acquire(String language) throws Exception
+    {
+        synchronized (this) {
+            while (true) {
+                if (closed) throw new IllegalStateException("OCR engine pool is closed");
+                Deque<tesseract.TessBaseAPI> idle = idleEngines.get(language);
+                if (idle != null && !idle.isEmpty()) return idle.pop();
+                int created = createdEngines.getOrDefault(language, 0);
+                if (created < maxEngines) {
+                    // Reserve the slot, then initialize outside the lock
+                    createdEngines.put(language, created + 1);
+                    break;
+                }
+                wait();
+            }
+        }
+        tesseract.TessBaseAPI engine = new tesseract.TessBaseAPI();
+        try {
+            OcrProcessor.initializeOcr(engine, language);
+            return engine;
+        } catch (Exception e) {
+            engine.End();
+            synchronized (this) {
+                createdEngines.put(language, createdEngines.get(language) - 1);
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks an engine back in
+     * @param language The language the engine was checked out for
+     * @param engine The engine
+     */
+    public void release(String language, tesseract.TessBaseAPI engine)
+    {
+        // Frees the last image and recognition results
+        engine.Clear();
+        synchronized (this) {
+            if (!closed) {
+                idleEngines.computeIfAbsent(language, key -> new ArrayDeque<>()).push(engine);
+                notifyAll();
+                return;
+            }
+            createdEngines.put(language, createdEngines.get(language) - 1);
+        }
+        engine.End();
+    }
+
+    /**
+     * Ends the idle engines. Engines still checked out are ended when they are released
+     */
+    public void close()
+    {
+        Map<String, Deque<tesseract.TessBaseAPI>> engines;
+        synchronized (this) {
+            closed = true;
+            engines = new HashMap<>(idleEngines);
+            idleEngines.clear();
+            for (Map.Entry<String, Deque<tesseract.TessBaseAPI>> entry : engines.entrySet()) {
+                createdEngines.put(entry.getKey(), createdEngines.get(entry.getKey()) - entry.getValue().size());
+            }
+            notifyAll();
+        }
+        for (Deque<tesseract.TessBaseAPI> idle : engines.values()) {
+            for (tesseract.TessBaseAPI engine : idle) engine.End();
+        }
+    }
+}
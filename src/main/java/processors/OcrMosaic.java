@@ -0,0 +1,201 @@
+package processors;
+
+import entities.RecognizedWord;
+import org.bytedeco.javacpp.tesseract;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Several binarized text blocks stacked into one image, so they are read by a single OCR call.
+ * For the small text blocks of captions, setting the image, analysing the layout and tearing down the results
+ * cost more than recognizing the words, and that cost is paid once per call.
+ *
+ * The blocks are stacked top to bottom, left aligned, with blank separators of at least half the height of the
+ * tallest block, so the layout analysis never joins the lines of two blocks. Every block is made dark text on
+ * white, its majority value, so the whole mosaic has one background. The words are mapped back to the block
+ * their bounding box is centered in, with their boxes in the coordinates of that block.
+ */
+public class OcrMosaic
+{
+    private static final int MARGIN = 10;
+    private static final int MIN_SEPARATOR = 20;
+    // Taller mosaics are split, keeping the image handed to the OCR engine reasonably small
+    private static final int MAX_HEIGHT = 4096;
+
+    private final List<Mat> blocks;
+    private final int[] tops;
+    private final int[] widths;
+    private final int[] heights;
+    private final int separator;
+    private final int width;
+    private final int height;
+
+    /**
+     * @param blocks The binary blocks, or null if only the layout is needed
+     * @param widths The width of every block
+     * @param heights The height of every block
+     */
+    OcrMosaic(List<Mat> blocks, int[] widths, int[] heights)
+    {
+        this.blocks = blocks;
+        this.widths = widths;
+        this.heights = heights;
+        int maxWidth = 0;
+        int maxHeight = 0;
+        for (int i = 0; i < widths.length; i++) {
+            maxWidth = Math.max(maxWidth, widths[i]);
+            maxHeight = Math.max(maxHeight, heights[i]);
+        }
+        separator = separator(maxHeight);
+        tops = new int[heights.length];
+        int top = MARGIN;
+        for (int i = 0; i < heights.length; i++) {
+            tops[i] = top;
+            top += heights[i] + separator;
+        }
+        width = maxWidth + 2 * MARGIN;
+        height = top - separator + MARGIN;
+    }
+
+    /**
+     * Groups the text blocks into mosaics, in their order
+     * @param blocks The binary, single channel, text blocks, as returned by {@link OcrProcessor#binarizeTextBlock}
+     * @param maxBlocks The maximum number of blocks per mosaic; 1 reads every block on its own
+     * @return The mosaics
+     */
+    public static List<OcrMosaic> pack(List<Mat> blocks, int maxBlocks)
+    {
+        int[] widths = new int[blocks.size()];
+        int[] heights = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            widths[i] = blocks.get(i).width();
+            heights[i] = blocks.get(i).height();
+        }
+        List<OcrMosaic> mosaics = new ArrayList<>();
+        for (int[] range : split(heights, maxBlocks)) {
+            mosaics.add(new OcrMosaic(blocks.subList(range[0], range[1]),
+                    copyOfRange(widths, range), copyOfRange(heights, range)));
+        }
+        return mosaics;
+    }
+
+    /**
+     * Only a block taller than the maximum mosaic height on its own makes a taller mosaic
+     * @param heights The heights of the blocks
+     * @param maxBlocks The maximum number of blocks per mosaic
+     * @return The first and end index of the blocks of every mosaic
+     */
+    static List<int[]> split(int[] heights, int maxBlocks)
+    {
+        List<int[]> ranges = new ArrayList<>();
+        int first = 0;
+        int heightSum = 0;
+        int maxHeight = 0;
+        for (int i = 0; i < heights.length; i++) {
+            // The separators of the whole mosaic grow with its tallest block
+            int sum = heightSum + heights[i];
+            int max = Math.max(maxHeight, heights[i]);
+            int mosaicHeight = 2 * MARGIN + sum + (i - first) * separator(max);
+            if (i > first && (i - first == maxBlocks || mosaicHeight > MAX_HEIGHT)) {
+                ranges.add(new int[]{first, i});
+                first = i;
+                sum = heights[i];
+                max = heights[i];
+            }
+            heightSum = sum;
+            maxHeight = max;
+        }
+        if (first < heights.length) ranges.add(new int[]{first, heights.length});
+        return ranges;
+    }
+
+    /**
+     * @return The number of blocks in the mosaic
+     */
+    public int size() {
+        return heights.length;
+    }
+
+    /**
+     * Reads all the blocks of the mosaic with one OCR call. A single block is rendered the same way,
+     * so the OCR engine reads a block alike whatever the number of blocks sharing its frame
+     * @param api The OCR engine
+     * @param listener Receives the OCR failures
+     * @return The words of every block, in reading order, with their boxes in the coordinates of the block
+     */
+    public List<List<RecognizedWord>> recognize(tesseract.TessBaseAPI api, ProcessingListener listener)
+    {
+        List<byte[]> pixels = new ArrayList<>();
+        for (Mat block : blocks) pixels.add(FrameBuffer.getBytes(block, null));
+        return assign(OcrProcessor.applyOCR(api, render(pixels), width, height, listener));
+    }
+
+    /**
+     * @param blockPixels The pixels of every block, binary and row by row
+     * @return The pixels of the mosaic, row by row
+     */
+    byte[] render(List<byte[]> blockPixels)
+    {
+        byte[] mosaic = new byte[width * height];
+        Arrays.fill(mosaic, (byte) 255);
+        for (int i = 0; i < blockPixels.size(); i++) {
+            byte[] block = blockPixels.get(i);
+            int white = 0;
+            for (byte pixel : block) if (pixel != 0) white++;
+            // The k-means labels are arbitrary, so the text is white on black for about half of the blocks
+            boolean invert = 2 * white < block.length;
+            for (int row = 0; row < heights[i]; row++) {
+                int source = row * widths[i];
+                int target = (tops[i] + row) * width + MARGIN;
+                for (int column = 0; column < widths[i]; column++) {
+                    mosaic[target + column] = (block[source + column] != 0) != invert ? (byte) 255 : 0;
+                }
+            }
+        }
+        return mosaic;
+    }
+
+    /**
+     * @param words The words read from the mosaic
+     * @return The words of every block, with their boxes moved to the coordinates of the block
+     */
+    List<List<RecognizedWord>> assign(List<RecognizedWord> words)
+    {
+        List<List<RecognizedWord>> blockWords = new ArrayList<>();
+        for (int i = 0; i < size(); i++) blockWords.add(new ArrayList<>());
+        for (RecognizedWord word : words) {
+            Rect box = word.getBox();
+            int center = box.y + box.height / 2;
+            // Blocks are apart by the separator, so the closest block is the one the word belongs to
+            int block = 0;
+            for (int i = 1; i < size() && center >= tops[i] - separator / 2; i++) block = i;
+            Rect blockBox = new Rect(box.x - MARGIN, box.y - tops[block], box.width, box.height);
+            blockWords.get(block).add(new RecognizedWord(word.getText(), word.getConfidence(), blockBox));
+        }
+        return blockWords;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param maxHeight The height of the tallest block of a mosaic
+     * @return The blank rows between its blocks
+     */
+    private static int separator(int maxHeight) {
+        return Math.max(MIN_SEPARATOR, maxHeight / 2);
+    }
+
+    private static int[] copyOfRange(int[] values, int[] range) {
+        return Arrays.copyOfRange(values, range[0], range[1]);
+    }
+}
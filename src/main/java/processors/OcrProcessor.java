@@ -1,17 +1,18 @@
 package processors;
 
-import controllers.MainController;
 import entities.ApplicationPaths;
-import entities.Controllers;
-import controllers.SettingsController;
-import javafx.application.Platform;
-import javafx.scene.control.Alert;
+import entities.OutputFolderNames;
+import entities.RecognizedWord;
+import org.bytedeco.javacpp.BytePointer;
 import org.bytedeco.javacpp.tesseract;
-import org.languagetool.JLanguageTool;
-import org.languagetool.language.BritishEnglish;
-import org.languagetool.rules.RuleMatch;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,12 +23,14 @@ import java.util.regex.Pattern;
 
 public class OcrProcessor
 {
-    private static JLanguageTool languageTool = new JLanguageTool(new BritishEnglish());
     private static Pattern pattern = Pattern.compile("[^a-z0-9 ]", Pattern.CASE_INSENSITIVE);
 
-    public static void initializeOcr(tesseract.TessBaseAPI ocrApi) throws Exception {
-        if (ocrApi.Init(ApplicationPaths.RESOURCES_OCR, SettingsController.getLanguageMap().
-                get(Controllers.getSettingsController().ocrLanguage_combobox.getSelectionModel().getSelectedItem().toString())) != 0) {
+    /**
+     * @param ocrApi The OCR engine to initialize
+     * @param language The tesseract language code, e.g. "eng"
+     */
+    public static void initializeOcr(tesseract.TessBaseAPI ocrApi, String language) throws Exception {
+        if (ocrApi.Init(ApplicationPaths.RESOURCES_OCR, language) != 0) {
             throw new Exception("Failed to set ocr language!");
         }
         /*if (!Controllers.getSettingsController().includeSpecialCharacters_checkbox.isSelected()){
@@ -35,6 +38,83 @@ public class OcrProcessor
         }*/
     }
 
+    /**
+     * Sharpens and thresholds a text block, producing the image passed to OCR
+     * @param textBlock The text block crop of the original frame
+     * @param imageWriter Receives the preprocessing steps
+     * @return The binary (0 or 255), single channel, text block
+     */
+    public static Mat binarizeTextBlock(Mat textBlock, ImageWriter imageWriter)
+    {
+        Mat src = new Mat();
+        Mat dst = new Mat();
+        Mat unsharp = new Mat();
+        imageWriter.writeOutputImage(textBlock,OutputFolderNames.ocr_preprocessing);
+
+        Imgproc.cvtColor(textBlock, src, Imgproc.COLOR_RGB2GRAY, 0);
+        imageWriter.writeOutputImage(src,OutputFolderNames.ocr_preprocessing);
+
+        Imgproc.GaussianBlur(src, dst, new Size(0, 0), 3);
+        Core.addWeighted(src, 1.5, dst, -0.5, 0, unsharp);
+        imageWriter.writeOutputImage(unsharp,OutputFolderNames.ocr_preprocessing);
+
+        Core.normalize(unsharp, src,0.0,1.0, Core.NORM_MINMAX);
+        Mat binary = ImageProcessor.thresholdImageWithKmeans(src);
+        imageWriter.writeOutputImage(binary,OutputFolderNames.ocr_preprocessing);
+
+        src.release();
+        dst.release();
+        unsharp.release();
+        return binary;
+    }
+
+    /**
+     * Extracts the words of a preprocessed text block image, along with their confidences and bounding boxes.
+     * The pixels are handed to the OCR engine directly from memory
+     * @param textBlock The binary, single channel, text block, as returned by binarizeTextBlock
+     * @param listener Receives the OCR failures
+     * @return The words, cleaned of special characters but not spell-checked, in reading order
+     */
+    public static List<RecognizedWord> applyOCR(tesseract.TessBaseAPI api, Mat textBlock, ProcessingListener listener){
+        return applyOCR(api, FrameBuffer.getBytes(textBlock, null), textBlock.width(), textBlock.height(), listener);
+    }
+
+    /**
+     * Extracts the words of a binary, single channel image held in an array
+     * @param pixels The pixel values, row by row
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param listener Receives the OCR failures
+     * @return The words, cleaned of special characters but not spell-checked, in reading order
+     */
+    public static List<RecognizedWord> applyOCR(tesseract.TessBaseAPI api, byte[] pixels, int width, int height, ProcessingListener listener){
+        List<RecognizedWord> words = new ArrayList<>();
+        // Tesseract copies the image, so the array is only needed during the call
+        api.SetImage(pixels, width, height, 1, width);
+        tesseract.ResultIterator iterator = api.Recognize(null) == 0 ? api.GetIterator() : null;
+        if (iterator == null) {
+            listener.onInfo("OcrProcessor Text is NULL - Continuing forward\n");
+            return words;
+        }
+        int[] left = new int[1], top = new int[1], right = new int[1], bottom = new int[1];
+        try {
+            do {
+                if (iterator.Empty(tesseract.RIL_WORD)) continue;
+                BytePointer text = iterator.GetUTF8Text(tesseract.RIL_WORD);
+                if (text == null) continue;
+                String cleaned = removeSpecialCharacters(text.getString().trim());
+                tesseract.TessDeleteText(text);
+                if (cleaned.isEmpty()) continue;
+                iterator.BoundingBox(tesseract.RIL_WORD, left, top, right, bottom);
+                words.add(new RecognizedWord(cleaned, iterator.Confidence(tesseract.RIL_WORD),
+                        new Rect(left[0], top[0], right[0] - left[0], bottom[0] - top[0])));
+            } while (iterator.Next(tesseract.RIL_WORD));
+        } finally {
+            tesseract.TessResultIteratorDelete(iterator);
+        }
+        return words;
+    }
+
     public static String removeSpecialCharacters(String ocrText){
         StringBuffer buffer = new StringBuffer(ocrText);
         Matcher matcher = pattern.matcher(buffer);
@@ -47,25 +127,17 @@ public class OcrProcessor
         return buffer.toString();
     }
 
-    public static String checkForSpelling(String ocrText) {
-        List<RuleMatch> matches;
-        StringBuffer buffer = new StringBuffer(ocrText);
-        int iterations = 0;
-        while (true) {
-            if (++iterations > 3) return buffer.toString();
-            try { matches = languageTool.check(buffer.toString()); }
-            catch (IOException e) { return ocrText; }
-            if (!matches.isEmpty()){
-                if (!matches.get(0).getSuggestedReplacements().isEmpty()){
-                    try {
-                        buffer.replace(matches.get(0).getFromPos(), matches.get(0).getToPos(), matches.get(0).getSuggestedReplacements().get(0));
-                    } catch (StringIndexOutOfBoundsException ignored) {}
-                } else {
-                    return " ";
-                }
-            } else {
-                return buffer.toString();
-            }
+    /**
+     * @param ocrText A cleaned OCR word
+     * @param spellingEngine Corrects the word
+     * @return The corrected word, the unchanged word if the check failed,
+     *         or a space if the word is misspelled without any suggestion
+     */
+    public static String checkForSpelling(String ocrText, SpellingEngine spellingEngine) {
+        try {
+            return spellingEngine.correct(ocrText);
+        } catch (IOException e) {
+            return ocrText;
         }
     }
-}
\ No newline at end of file
+}
@@ -51,25 +51,31 @@ public class PixelProcessor
 
     public static Mat arrayToMat(double[][] array,int height, int width, int matType)
     {
-        Mat image = new Mat(height,width,matType);
+        double[] values = new double[height * width];
         for (int i=0; i<height; i++)
         {
-            for (int j=0; j<width; j++)
-            {
-                image.put(i,j,array[i][j]);
-            }
+            System.arraycopy(array[i], 0, values, i * width, width);
         }
+        Mat image = new Mat();
+        FrameBuffer.put(image, height, width, matType, values);
         return image;
     }
 
+    /**
+     * Copies the first channel of a Mat image into a 2D array
+     * @param frame The Mat image
+     * @return The pixel values, indexed by [row][column]
+     */
     public static double[][] matToArray(Mat frame)
     {
+        double[] values = FrameBuffer.getDoubles(frame);
+        int channels = frame.channels();
         double array[][] = new double[frame.height()][frame.width()];
-        for (int i=0; i < frame.height(); i++)
+        for (int i=0, k=0; i < frame.height(); i++)
         {
-            for (int j=0; j < frame.width(); j++)
+            for (int j=0; j < frame.width(); j++, k += channels)
             {
-                array[i][j] = frame.get(i,j)[0];
+                array[i][j] = values[k];
             }
         }
         return array;
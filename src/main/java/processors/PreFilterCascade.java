@@ -0,0 +1,232 @@
+package processors;
+
+import entities.PreFilter;
+import entities.ProcessingSettings;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Rect;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Rejects obvious non-text candidate blocks before their LBP features are extracted and scored by the SVM.
+ * The enabled {@link PreFilter}s run in order of cost: the checks reading the connected component stats
+ * and edges come before the grey conversion and resize of the block, the checks reading its pixels after.
+ *
+ * The result of the checks is a bit set of the rejecting filters, by ordinal. Normally the first rejecting
+ * filter ends the cascade. In evaluation mode every filter runs and nothing is rejected, so the counts show,
+ * for each filter alone, how many candidates it would reject and how many of those the SVM accepts.
+ *
+ * Thread-safe: shared by the classification workers of a job.
+ */
+public class PreFilterCascade
+{
+    private static final PreFilter[] FILTERS = PreFilter.values();
+
+    private final ProcessingSettings settings;
+    private final boolean evaluation;
+    private final AtomicInteger candidates = new AtomicInteger();
+    private final AtomicInteger acceptedBlocks = new AtomicInteger();
+    private final AtomicIntegerArray rejected = new AtomicIntegerArray(FILTERS.length);
+    // Rejected blocks which the SVM accepted, only counted in evaluation mode
+    private final AtomicIntegerArray lostBlocks = new AtomicIntegerArray(FILTERS.length);
+
+    /**
+     * @param settings The enabled filters, their thresholds and whether they are evaluated only
+     */
+    public PreFilterCascade(ProcessingSettings settings)
+    {
+        this.settings = settings;
+        this.evaluation = settings.isPreFilterEvaluation();
+    }
+
+    /**
+     * @return Whether the edges of the frames are needed by {@link #checkComponent(Rect, int, Mat)}
+     */
+    public boolean usesEdges() {
+        return settings.getPreFilters().contains(PreFilter.EDGE_DENSITY);
+    }
+
+    /**
+     * Runs the filters reading the connected component
+     * @param box The bounding box of the component
+     * @param area The number of pixels of the component
+     * @param edges The binary edge image of the frame, before dilation; only read if {@link #usesEdges()}
+     * @return The rejecting filters
+     */
+    public int checkComponent(Rect box, int area, Mat edges)
+    {
+        int rejections = 0;
+        if (isEnabled(PreFilter.FILL_RATIO) && area < settings.getMinFillRatio() * box.area()) {
+            rejections = reject(rejections, PreFilter.FILL_RATIO);
+            if (!evaluation) return rejections;
+        }
+        if (isEnabled(PreFilter.EDGE_DENSITY)) {
+            Mat edgesOfBox = new Mat(edges, box);
+            int edgePixels = Core.countNonZero(edgesOfBox);
+            edgesOfBox.release();
+            if (edgePixels < settings.getMinEdgeDensity() * box.area()) rejections = reject(rejections, PreFilter.EDGE_DENSITY);
+        }
+        return rejections;
+    }
+
+    /**
+     * Runs the filters reading the pixels of the block, unless an earlier filter rejected it
+     * @param block The grey, resized candidate block
+     * @param rejections The result of {@link #checkComponent(Rect, int, Mat)}
+     * @return The rejecting filters
+     */
+    public int checkBlock(Mat block, int rejections)
+    {
+        if (isRejected(rejections)) return rejections;
+        boolean variance = isEnabled(PreFilter.INTENSITY_VARIANCE);
+        boolean strokeWidth = isEnabled(PreFilter.STROKE_WIDTH);
+        if (!variance && !strokeWidth) return rejections;
+        byte[] pixels = FrameBuffer.getBytes(block, null);
+        if (variance && getVariance(pixels) < settings.getMinIntensityVariance()) {
+            rejections = reject(rejections, PreFilter.INTENSITY_VARIANCE);
+            if (!evaluation) return rejections;
+        }
+        if (strokeWidth && getStrokeWidth(pixels, block.rows(), block.cols()) > settings.getMaxStrokeWidth()) {
+            rejections = reject(rejections, PreFilter.STROKE_WIDTH);
+        }
+        return rejections;
+    }
+
+    /**
+     * @param rejections The result of the checks
+     * @return True if the candidate must not be passed to the SVM
+     */
+    public boolean isRejected(int rejections) {
+        return !evaluation && rejections != 0;
+    }
+
+    /**
+     * Counts a candidate once its fate is known
+     * @param rejections The result of the checks
+     * @param containsText Whether the SVM accepted the block; false if it was rejected before the SVM
+     */
+    public void count(int rejections, boolean containsText)
+    {
+        candidates.incrementAndGet();
+        if (containsText) acceptedBlocks.incrementAndGet();
+        for (PreFilter filter : FILTERS) {
+            if ((rejections & bit(filter)) == 0) continue;
+            rejected.incrementAndGet(filter.ordinal());
+            if (containsText) lostBlocks.incrementAndGet(filter.ordinal());
+        }
+    }
+
+    /**
+     * @param filter A filter
+     * @return The number of candidates it rejected, or would have rejected in evaluation mode
+     */
+    public int getRejected(PreFilter filter) {
+        return rejected.get(filter.ordinal());
+    }
+
+    /**
+     * @param filter A filter
+     * @return In evaluation mode, the number of candidates it would have rejected although the SVM accepted them
+     */
+    public int getLostBlocks(PreFilter filter) {
+        return lostBlocks.get(filter.ordinal());
+    }
+
+    /**
+     * @return The rejection counts, one line per enabled filter in evaluation mode
+     */
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        if (!evaluation) {
+            int total = 0;
+            StringBuilder perFilter = new StringBuilder();
+            for (PreFilter filter : settings.getPreFilters()) {
+                total += getRejected(filter);
+                perFilter.append(perFilter.length() == 0 ? ": " : ", ").append(name(filter)).append(' ').append(getRejected(filter));
+            }
+            return report.append("[Pre-filters rejected ").append(total).append(" of ").append(candidates.get())
+                    .append(" candidate text blocks").append(perFilter).append("]\n").toString();
+        }
+        for (PreFilter filter : settings.getPreFilters()) {
+            int accepted = acceptedBlocks.get();
+            report.append(String.format(Locale.ROOT, "[Pre-filter %s would reject %d of %d candidates, losing %d of %d text blocks (%.1f%% recall)]\n",
+                    name(filter), getRejected(filter), candidates.get(), getLostBlocks(filter), accepted,
+                    accepted == 0 ? 100.0 : 100.0 * (accepted - getLostBlocks(filter)) / accepted));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param pixels The grey intensities
+     * @return Their variance
+     */
+    static double getVariance(byte[] pixels)
+    {
+        if (pixels.length == 0) return 0;
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (byte pixel : pixels) {
+            int value = pixel & 0xFF;
+            sum += value;
+            sumOfSquares += value * value;
+        }
+        double mean = (double) sum / pixels.length;
+        return (double) sumOfSquares / pixels.length - mean * mean;
+    }
+
+    /**
+     * A stroke width proxy: the pixels brighter than the mean, or the others if they are fewer, are taken as the
+     * strokes, and the mean length of their horizontal runs is measured. Text has many short runs; bars, lines
+     * and filled shapes have long ones
+     * @param pixels The grey intensities, row by row
+     * @param rows The number of rows
+     * @param cols The number of columns
+     * @return The mean run length relative to the number of rows, 0 if the block is flat
+     */
+    static double getStrokeWidth(byte[] pixels, int rows, int cols)
+    {
+        long sum = 0;
+        for (byte pixel : pixels) sum += pixel & 0xFF;
+        int mean = (int) (sum / Math.max(1, pixels.length));
+        int bright = 0;
+        for (byte pixel : pixels) if ((pixel & 0xFF) > mean) bright++;
+        boolean brightStrokes = 2 * bright <= pixels.length;
+
+        int runs = 0;
+        int strokePixels = 0;
+        for (int x = 0; x < rows; x++)
+        {
+            boolean inStroke = false;
+            for (int y = 0; y < cols; y++)
+            {
+                boolean stroke = ((pixels[x * cols + y] & 0xFF) > mean) == brightStrokes;
+                if (stroke) {
+                    strokePixels++;
+                    if (!inStroke) runs++;
+                }
+                inStroke = stroke;
+            }
+        }
+        return runs == 0 ? 0 : (double) strokePixels / runs / rows;
+    }
+
+    private boolean isEnabled(PreFilter filter) {
+        return settings.getPreFilters().contains(filter);
+    }
+
+    private static int reject(int rejections, PreFilter filter) {
+        return rejections | bit(filter);
+    }
+
+    private static int bit(PreFilter filter) {
+        return 1 << filter.ordinal();
+    }
+
+    private static String name(PreFilter filter) {
+        return filter.name().toLowerCase(Locale.ROOT).replace('_', ' ');
+    }
+}
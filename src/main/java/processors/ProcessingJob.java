@@ -0,0 +1,704 @@
+package processors;
+
+import com.google.common.cache.CacheStats;
+import entities.OcrWord;
+import entities.OutputFolderNames;
+import entities.ProcessedFrame;
+import entities.ProcessingSettings;
+import entities.RecognizedWord;
+import entities.SpellingMode;
+import entities.StructuringElement;
+import entities.TextTrack;
+import org.bytedeco.javacpp.tesseract;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.VideoWriter;
+import org.opencv.videoio.Videoio;
+import pipeline.Pipeline;
+import pipeline.StageWorker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The processing of a single video file.
+ * A job owns its settings snapshot, output folder, image writer, buffers and counters,
+ * so several jobs can run at the same time in one process without sharing any mutable state.
+ */
+public class ProcessingJob
+{
+    // Shorter videos are not worth splitting into segments
+    private static final int MIN_SEGMENT_FRAMES = 300;
+
+    private final File videoFile;
+    private final ProcessingSettings settings;
+    private final Path outputFolder;
+    private final ProcessingListener listener;
+    private final ImageWriter imageWriter;
+    private final OcrCache ocrCache;
+    private final PreFilterCascade preFilters;
+    private final TextBlockMerger textBlockMerger;
+    private final OcrEnginePool ocrEngines = OcrEnginePool.getShared();
+    private final AtomicInteger encodedFrames = new AtomicInteger();
+    private final AtomicInteger analysedFrames = new AtomicInteger();
+    private final AtomicInteger sceneChanges = new AtomicInteger();
+    private final AtomicInteger ocrTextBlocks = new AtomicInteger();
+    private final AtomicInteger ocrCalls = new AtomicInteger();
+    private final AtomicInteger recognizedBlocks = new AtomicInteger();
+    private final AtomicInteger detectedTextBlocks = new AtomicInteger();
+    private final AtomicInteger candidateBlocks = new AtomicInteger();
+    private final AtomicInteger acceptedBlocks = new AtomicInteger();
+    private final AtomicInteger earlyExits = new AtomicInteger();
+    private final AtomicInteger trustedWords = new AtomicInteger();
+    private final AtomicInteger checkedWords = new AtomicInteger();
+    private final AtomicInteger droppedWords = new AtomicInteger();
+    private volatile Thread runner;
+    private volatile boolean cancelled;
+    private int frames;
+    private double fps;
+    private Mat structuringElement;
+    private SpellingEngine spellingEngine;
+    private WordIndex wordIndex;
+    private ClassificationLog classificationLog;
+
+    /**
+     * @param videoFile The mp4 file to process
+     * @param settings The processing options. The job keeps an immutable snapshot of them
+     * @param outputFolder The folder receiving the outputs, as created by FileProcessor.createDirectories
+     * @param listener Receives the extracted words and the progress
+     */
+    public ProcessingJob(File videoFile, ProcessingSettings settings, Path outputFolder, ProcessingListener listener)
+    {
+        this.videoFile = videoFile;
+        this.settings = settings.snapshot();
+        this.outputFolder = outputFolder;
+        this.listener = listener;
+        this.imageWriter = new ImageWriter(outputFolder, this.settings);
+        this.ocrCache = new OcrCache(this.settings.getOcrCacheSize(), this.settings.getOcrCacheTolerance());
+        this.preFilters = new PreFilterCascade(this.settings);
+        this.textBlockMerger = new TextBlockMerger(this.settings);
+    }
+
+    /**
+     * Processes the video on the calling thread
+     * @return True if the video was processed completely, False if the job was cancelled
+     * @throws IOException If the video frames cannot be read
+     * @throws Exception If any processing stage failed
+     */
+    public boolean run() throws Exception
+    {
+        runner = Thread.currentThread();
+        if (cancelled) return false;
+        CacheStats spellingStats = SpellingCache.getShared().getStats();
+
+        VideoCapture cap = new VideoCapture(videoFile.getAbsolutePath());
+        Mat firstFrame = new Mat();
+        if (!cap.read(firstFrame)) {
+            cap.release();
+            throw new IOException("Failed to read video frames. Try another video file. If the error persists, contact the developer");
+        }
+        VideoWriter videoWriter = createVideoWriter(cap, getVideoFile());
+        try {
+            frames = (int) cap.get(Videoio.CAP_PROP_FRAME_COUNT);
+            fps = cap.get(Videoio.CAP_PROP_FPS);
+            Size kernel = StructuringElement.getStructuringElement(firstFrame.height()*firstFrame.width());
+            structuringElement = Imgproc.getStructuringElement(Imgproc.MORPH_RECT, kernel);
+            listener.onInfo("[Structuring Element: "+kernel.height+" x "+kernel.width+"]\n");
+            classificationLog = new ClassificationLog(outputFolder);
+            if (settings.isExtractText()) {
+                wordIndex = new WordIndex(outputFolder, fps);
+                spellingEngine = selectSpellingEngine();
+                listener.onInfo("[Spell-checking with " + spellingEngine.getDescription() + "]\n");
+            }
+
+            int segments = Math.min(settings.getSegments(), Math.max(1, frames / MIN_SEGMENT_FRAMES));
+            if (segments > 1) {
+                listener.onInfo("[Processing " + segments + " segments concurrently]\n");
+                processSegments(segments, videoWriter);
+            } else {
+                processFrames(cap, firstFrame, 1, Integer.MAX_VALUE, videoWriter, this::reportWords);
+            }
+            listener.onInfo("[Analysed " + analysedFrames.get() + " of " + encodedFrames.get() + " frames, "
+                    + sceneChanges.get() + " scene changes]\n");
+            listener.onInfo(String.format("[Classified %d candidate text blocks, %.1f per frame: %d accepted, %d decided early]\n",
+                    candidateBlocks.get(), candidateBlocks.get() / (double) Math.max(1, analysedFrames.get()),
+                    acceptedBlocks.get(), earlyExits.get()));
+            classificationLog.close();
+            if (!settings.getPreFilters().isEmpty()) listener.onInfo(preFilters.getReport());
+            if (settings.isMergeTextBlocks()) reportMergedTextBlocks();
+            if (settings.isExtractText()) {
+                listener.onInfo("[Passed " + ocrTextBlocks.get() + " of " + detectedTextBlocks.get() + " text blocks to OCR]\n");
+                listener.onInfo("[OCR cache: " + ocrCache.getHits() + " hits, " + ocrCache.getMisses() + " misses, "
+                        + ocrCache.getEvictions() + " evictions]\n");
+                listener.onInfo("[OCR calls: " + ocrCalls.get() + " for " + recognizedBlocks.get() + " text blocks]\n");
+                listener.onInfo("[OCR words: " + trustedWords.get() + " confident, " + checkedWords.get() + " spell-checked, "
+                        + droppedWords.get() + " dropped as noise]\n");
+                if (spellingEngine instanceof LanguageToolSpellingEngine) {
+                    // The shared cache also counts the lookups of the jobs running at the same time
+                    spellingStats = SpellingCache.getShared().getStats().minus(spellingStats);
+                    listener.onInfo(String.format("[Spelling cache: %d hits, %d misses, %.0f%% hit rate, %d words]\n",
+                            spellingStats.hitCount(), spellingStats.missCount(), 100 * spellingStats.hitRate(),
+                            SpellingCache.getShared().size()));
+                }
+            }
+            if (wordIndex != null) {
+                wordIndex.close();
+                listener.onInfo("[Indexed " + wordIndex.size() + " distinct words]\n");
+            }
+            if (imageWriter.isEnabled()) {
+                imageWriter.close();
+                listener.onInfo("[Exported " + imageWriter.getWrittenImages() + " images, dropped "
+                        + imageWriter.getDroppedImages() + "]\n");
+            }
+        } catch (InterruptedException e) {
+            if (!cancelled) throw e;
+        } finally {
+            cap.release();
+            videoWriter.release();
+            closeImageWriter();
+            closeWordIndex();
+            closeClassificationLog();
+            runner = null;
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Reports how many text blocks were joined, and the OCR calls that saved. Each joined block would have been
+     * tracked on its own, so the saving is estimated from the OCR calls per tracked text block of this run
+     */
+    private void reportMergedTextBlocks()
+    {
+        int joined = textBlockMerger.getMergedBlocks() + textBlockMerger.getSuppressedBlocks();
+        String report = "[Joined " + joined + " of " + textBlockMerger.getInputBlocks() + " text blocks: "
+                + textBlockMerger.getMergedBlocks() + " on the same line, " + textBlockMerger.getSuppressedBlocks() + " overlapping";
+        if (settings.isExtractText() && detectedTextBlocks.get() > 0) {
+            report += ", saving about " + Math.round((double) joined * ocrTextBlocks.get() / detectedTextBlocks.get()) + " OCR calls";
+        }
+        listener.onInfo(report + "]\n");
+    }
+
+    /**
+     * Writes the images still queued after a cancelled or failed run, ignoring any error
+     */
+    private void closeImageWriter()
+    {
+        try {
+            imageWriter.close();
+        } catch (IOException | InterruptedException e) {
+            // The images of an unfinished job are incomplete anyway
+        }
+    }
+
+    /**
+     * Writes the word index summary after a cancelled or failed run, ignoring any error
+     */
+    private void closeWordIndex()
+    {
+        if (wordIndex == null) return;
+        try {
+            wordIndex.close();
+        } catch (IOException e) {
+            // The occurrences written so far are kept
+        }
+    }
+
+    /**
+     * Closes the classification counts file after a cancelled or failed run, ignoring any error
+     */
+    private void closeClassificationLog()
+    {
+        if (classificationLog == null) return;
+        try {
+            classificationLog.close();
+        } catch (IOException e) {
+            // The rows written so far are kept
+        }
+    }
+
+    /**
+     * Stops the job as soon as possible. The thread running the job returns once all its workers have stopped
+     */
+    public void cancel()
+    {
+        cancelled = true;
+        Thread thread = runner;
+        if (thread != null) thread.interrupt();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public ProcessingSettings getSettings() {
+        return settings;
+    }
+
+    public Path getOutputFolder() {
+        return outputFolder;
+    }
+
+    /**
+     * @return The annotated output video
+     */
+    public File getVideoFile() {
+        return outputFolder.resolve(OutputFolderNames.video.name()).resolve("video.mp4").toFile();
+    }
+
+    /**
+     * @return The number of frames written to the output video so far
+     */
+    public int getEncodedFrames() {
+        return encodedFrames.get();
+    }
+
+    /**
+     * @return The cache of the job's OCR results, with its hit, miss and eviction counters
+     */
+    public OcrCache getOcrCache() {
+        return ocrCache;
+    }
+
+    /**
+     * @return The number of frames which went through text detection so far
+     */
+    public int getAnalysedFrames() {
+        return analysedFrames.get();
+    }
+
+    /**
+     * Runs the detection pipeline over a range of video frames.
+     * Decoding happens on the calling thread; detection, classification and OCR run on their own
+     * worker threads, and the encoder writes the annotated frames back in their original order.
+     * Which frames are analysed is decided by a {@link FrameSampler}, and a {@link TextBlockTracker}
+     * makes sure each text block is passed to OCR only once, when it disappears.
+     * @param cap The video, positioned right after the first frame of the range
+     * @param firstFrame The first frame of the range, already read from the video
+     * @param firstFrameNumber The 1-based number of the first frame
+     * @param endFrameNumber The number of the first frame after the range
+     * @param videoWriter Receives the annotated frames
+     * @param wordConsumer Receives the extracted words of the text tracks ending with every analysed frame, in frame order
+     * @throws InterruptedException If the calling thread was interrupted
+     * @throws Exception If any stage of the pipeline failed
+     */
+    private void processFrames(VideoCapture cap, Mat firstFrame, int firstFrameNumber, int endFrameNumber,
+                               VideoWriter videoWriter, Consumer<List<OcrWord>> wordConsumer) throws Exception
+    {
+        FrameSampler sampler = new FrameSampler(settings);
+        TextBlockTracker tracker = new TextBlockTracker();
+        Pipeline<ProcessedFrame> pipeline = new Pipeline<>("video-" + firstFrameNumber, settings.getQueueCapacity());
+        pipeline.addStage("detection", settings.getDetectionWorkers(), DetectionWorker::new)
+                .addStage("classification", settings.getClassificationWorkers(),
+                        () -> frame -> {
+                            ImageProcessor.findTextBlocks(frame, imageWriter.forFrame(frame), preFilters);
+                            candidateBlocks.addAndGet(frame.getCandidateBlocks());
+                            acceptedBlocks.addAndGet(frame.getTextBlocks().size());
+                            earlyExits.addAndGet(frame.getEarlyExits());
+                            classificationLog.add(frame.getFrameNumber(), frame.getLastFrameNumber(),
+                                    frame.getCandidateBlocks(), frame.getTextBlocks().size(), frame.getEarlyExits());
+                            if (settings.isMergeTextBlocks()) frame.setTextBlocks(textBlockMerger.merge(frame.getTextBlocks()));
+                        });
+        if (settings.isExtractText()) {
+            pipeline.addOrderedStage("tracking",
+                    () -> frame -> frame.setEndedTracks(tracker.update(frame.getFrameNumber(), frame.getLastFrameNumber(),
+                            frame.getTextBlocks(), frame.getInput(), frame.isLastOfRange())))
+                    .addStage("ocr", settings.getOcrWorkers(), OcrWorker::new);
+        }
+        pipeline.addOrderedStage("encode",
+                        () -> frame -> {
+                            sampler.reportTextBlocks(frame.getTextBlocks().size());
+                            encodeFrame(frame, videoWriter, wordConsumer);
+                        });
+        try {
+            pipeline.start();
+            Mat input = firstFrame;
+            int frameNumber = firstFrameNumber;
+            int nextExportedFrame = firstFrameNumber;
+            while (input != null)
+            {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                ProcessedFrame frame = new ProcessedFrame(frameNumber, input);
+                int exportedFrame = nextExportedFrame;
+                nextExportedFrame = imageWriter.sampleFrame(frameNumber, nextExportedFrame);
+                frame.setExportingImages(nextExportedFrame != exportedFrame);
+                sampler.startGroup(input);
+
+                /*
+                  Reading the frames which are not analysed.
+                  They are not processed, however they are written to the video result,
+                  using the text areas detected in this frame.
+                  The first frame which does not extend the group is analysed next.
+                */
+                input = null;
+                while (frame.getLastFrameNumber() + 1 < endFrameNumber) {
+                    Mat next = new Mat();
+                    if (!cap.read(next)) break;
+                    if (!sampler.extendsGroup(next, 1 + frame.getFollowingFrames().size())) {
+                        input = next;
+                        break;
+                    }
+                    frame.addFollowingFrame(next);
+                }
+                frame.setLastOfRange(input == null);
+                pipeline.submit(frame);
+                frameNumber = frame.getLastFrameNumber() + 1;
+            }
+            pipeline.finish();
+        } catch (Exception e) {
+            pipeline.cancel();
+            throw e;
+        } finally {
+            analysedFrames.addAndGet(sampler.getAnalysedFrames());
+            sceneChanges.addAndGet(sampler.getSceneChanges());
+            ocrTextBlocks.addAndGet(tracker.getEndedTracks());
+            detectedTextBlocks.addAndGet(tracker.getSightings());
+            sampler.release();
+            tracker.close();
+        }
+    }
+
+    /**
+     * Splits the video into time segments which are processed concurrently, each one with its own
+     * video capture and pipeline. The annotated segment videos are then joined into the output video
+     * and the words are reported in segment order, as soon as all the previous segments have finished.
+     */
+    private void processSegments(int segments, VideoWriter videoWriter) throws Exception
+    {
+        int segmentLength = (frames + segments - 1) / segments;
+        List<File> segmentFiles = new ArrayList<>();
+        List<List<OcrWord>> segmentWords = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            for (int s = 0; s < segments; s++)
+            {
+                int firstFrameNumber = 1 + s * segmentLength;
+                // The frame count is only an estimate for some containers, so the last segment runs to the end
+                int endFrameNumber = (s == segments - 1) ? Integer.MAX_VALUE : firstFrameNumber + segmentLength;
+                File segmentFile = outputFolder.resolve(OutputFolderNames.video.name()).resolve("segment_" + s + ".mp4").toFile();
+                List<OcrWord> words = new ArrayList<>();
+                segmentFiles.add(segmentFile);
+                segmentWords.add(words);
+                futures.add(executor.submit(() -> {
+                    processSegment(segmentFile, firstFrameNumber, endFrameNumber, words);
+                    return null;
+                }));
+            }
+            for (int s = 0; s < segments; s++) {
+                try {
+                    futures.get(s).get();
+                } catch (ExecutionException e) {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+                reportWords(segmentWords.get(s));
+            }
+        } finally {
+            executor.shutdownNow();
+            while (!executor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+                // Segment pipelines stop on interruption; wait until their video files are released
+            }
+        }
+
+        // Join the annotated segments into the output video
+        Mat frame = new Mat();
+        for (File segmentFile : segmentFiles) {
+            VideoCapture segment = new VideoCapture(segmentFile.getAbsolutePath());
+            while (segment.read(frame)) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                videoWriter.write(frame);
+            }
+            segment.release();
+            Files.deleteIfExists(segmentFile.toPath());
+        }
+        frame.release();
+    }
+
+    /**
+     * Processes a single segment of the video, writing its annotated frames into a separate video file
+     */
+    private void processSegment(File segmentFile, int firstFrameNumber, int endFrameNumber, List<OcrWord> words) throws Exception
+    {
+        VideoCapture cap = new VideoCapture(videoFile.getAbsolutePath());
+        VideoWriter videoWriter = createVideoWriter(cap, segmentFile);
+        try {
+            cap.set(Videoio.CAP_PROP_POS_FRAMES, firstFrameNumber - 1);
+            Mat firstFrame = new Mat();
+            if (!cap.read(firstFrame)) return;
+            processFrames(cap, firstFrame, firstFrameNumber, endFrameNumber, videoWriter, words::addAll);
+        } finally {
+            cap.release();
+            videoWriter.release();
+        }
+    }
+
+    /**
+     * Paints the detected text blocks on the analysed frame and on the frames following it,
+     * and writes them to the output video.
+     * Runs on the single, ordered, encoding stage of the pipeline.
+     */
+    private void encodeFrame(ProcessedFrame frame, VideoWriter videoWriter, Consumer<List<OcrWord>> wordConsumer)
+    {
+        Mat inputWithTextBlocks = frame.getInput();
+        ImageProcessor.paintTextBlocks(frame.getTextBlocks(), inputWithTextBlocks);
+        ImageWriter images = imageWriter.forFrame(frame);
+        images.writeOutputImage(inputWithTextBlocks,OutputFolderNames.detection_steps);
+        images.writeOutputImage(inputWithTextBlocks,OutputFolderNames.detected_areas);
+
+        // Write painted frame to video
+        videoWriter.write(inputWithTextBlocks);
+
+        for (Mat following : frame.getFollowingFrames()) {
+            ImageProcessor.paintTextBlocks(frame.getTextBlocks(), following);
+            videoWriter.write(following);
+        }
+
+        wordConsumer.accept(frame.getWords());
+        int encoded = encodedFrames.addAndGet(1 + frame.getFollowingFrames().size());
+        listener.onProgress(encoded / (double) frames);
+        frame.release();
+    }
+
+    /**
+     * Adds the extracted words to the word index and passes them to the listener,
+     * skipping the already reported ones if unique words are requested.
+     * Called either from the single encoding thread or, for segmented videos, from the job thread
+     */
+    private void reportWords(List<OcrWord> words)
+    {
+        if (words.isEmpty()) return;
+        List<OcrWord> newWords;
+        try {
+            newWords = wordIndex.add(words);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!settings.isExtractUniqueWords()) {
+            listener.onWords(words);
+        } else if (!newWords.isEmpty()) {
+            listener.onWords(newWords);
+        }
+    }
+
+    /**
+     * @return The dictionary of the OCR language in fast mode, if the language has a word frequency list, otherwise LanguageTool
+     * @throws IOException If the word frequency list cannot be read
+     */
+    private SpellingEngine selectSpellingEngine() throws IOException
+    {
+        if (settings.getSpellingMode() == SpellingMode.FAST) {
+            SpellingEngine dictionary = SymSpellEngine.forLanguage(settings.getOcrLanguage());
+            if (dictionary != null) return dictionary;
+            listener.onInfo("[No word frequency list for " + settings.getOcrLanguage() + ", using the accurate spelling mode]\n");
+        }
+        return LanguageToolSpellingEngine.getShared();
+    }
+
+    private VideoWriter createVideoWriter(VideoCapture cap, File file)
+    {
+        return new VideoWriter(file.getAbsolutePath(), VideoWriter.fourcc('X', '2','6','4'),
+                cap.get(Videoio.CAP_PROP_FPS), new Size(cap.get(Videoio.CAP_PROP_FRAME_WIDTH), cap.get(Videoio.CAP_PROP_FRAME_HEIGHT)), true);
+    }
+
+    /**
+     * Detection stage: finds the candidate text areas of a frame by applying
+     * Gaussian blur, Laplacian, MGD, thresholding and dilation. Keeps its own reusable images
+     */
+    private class DetectionWorker implements StageWorker<ProcessedFrame>
+    {
+        private final MgdProcessor mgdProcessor = new MgdProcessor();
+        private final Mat blurred = new Mat();
+        private final Mat gray = new Mat();
+        private final Mat laplace = new Mat();
+        private Mat mgd = new Mat();
+        private final Mat binary = new Mat();
+
+        @Override
+        public void process(ProcessedFrame frame)
+        {
+            Mat input = frame.getInput();
+            ImageWriter images = imageWriter.forFrame(frame);
+            images.writeOutputImage(input,OutputFolderNames.detection_steps);
+            /*
+            Apply Gaussian Blurred Filter
+            GaussianBlur Parameters:
+            src – input image
+            dst – output image of the same size and type as src.
+            ksize – Gaussian kernel size. ksize.width and ksize.height
+                    can differ but they both must be positive and odd.
+                    Or, they can be zero’s and then they are computed from sigma* .
+            sigmaX – Gaussian kernel standard deviation in X direction.
+            sigmaY – Gaussian kernel standard deviation in Y direction;
+                    if sigmaY is zero, it is set to be equal to sigmaX,
+                    if both sigmas are zeros, they are computed from ksize.width and ksize.height
+             */
+            Imgproc.GaussianBlur(input, blurred, new Size(15.0,15.0),0.0,0.0);
+            images.writeOutputImage(blurred,OutputFolderNames.detection_steps);
+
+            // Convert to GrayScale
+            Imgproc.cvtColor(blurred, gray, Imgproc.COLOR_RGB2GRAY, 0);
+            images.writeOutputImage(gray,OutputFolderNames.detection_steps);
+
+            /*
+            Apply the Laplacian Filter
+            Laplacian Parameters:
+            src – Source image.
+            dst – Destination image of the same size and the same number of channels as src .
+            ddepth – Desired depth of the destination image.
+            ksize – Aperture size used to compute the second-derivative filters.
+                    The ksize must be positive and odd. Bigger ksize leads to stronger intensity.
+            scale – Optional scale factor for the computed Laplacian values.
+                    By default, no scaling is applied.
+            delta – Optional delta value that is added to the results prior to storing them in dst.
+             */
+            Imgproc.Laplacian(gray, laplace, CvType.CV_16S,3,2,0);
+            images.writeOutputImage(laplace,OutputFolderNames.detection_steps);
+
+            // Apply the MaximumGradientDifference(MGD) operator
+            if (settings.isSlidingWindowMgd()) {
+                mgdProcessor.apply(laplace, mgd);
+            } else {
+                double[][] mgdArray = PixelProcessor.getMgdArray(laplace);
+
+                // Convert the mgdArray back again into a Mat object
+                mgd = PixelProcessor.arrayToMat(mgdArray, laplace.height(), laplace.width(), CvType.CV_16S);
+            }
+            images.writeOutputImage(mgd,OutputFolderNames.detection_steps);
+
+            // Convert to Binary
+            mgd.convertTo(mgd, CvType.CV_8UC1);
+            Imgproc.threshold(mgd, binary, 80,255,Imgproc.THRESH_BINARY);
+            images.writeOutputImage(binary,OutputFolderNames.detection_steps);
+
+            /*
+            Apply the morphological operation Dilation
+            ImgProc.dilate Parameters:
+            src – input image; the number of channels can be arbitrary,
+                  but the depth should be one of CV_8U, CV_16U, CV_16S, CV_32F` or ``CV_64F.
+            dst – output image of the same size and type as src.
+            element – structuring element used for dilation;
+                  if element=Mat() , a 3 x 3 rectangular structuring element is used.
+            anchor – position of the anchor within the element;
+                  default value (-1, -1) means that the anchor is at the element center.
+            */
+            Mat dilated = new Mat();
+            Imgproc.dilate(binary, dilated, structuringElement);
+            images.writeOutputImage(dilated,OutputFolderNames.detection_steps);
+            frame.setDilated(dilated);
+            if (preFilters.usesEdges()) frame.setEdges(binary.clone());
+        }
+
+        @Override
+        public void close()
+        {
+            blurred.release();
+            gray.release();
+            laplace.release();
+            mgd.release();
+            binary.release();
+        }
+    }
+
+    /**
+     * OCR stage: preprocesses the sharpest instance of every text track which ended with a frame
+     * and extracts its words, using an engine checked out of the shared {@link OcrEnginePool}.
+     * Only the words recognized with a medium confidence are spell-checked.
+     * Text blocks similar to an already read one reuse its words from the job's OCR cache;
+     * the others are stacked into {@link OcrMosaic}s, so a few OCR calls read all of them
+     */
+    private class OcrWorker implements StageWorker<ProcessedFrame>
+    {
+        @Override
+        public void process(ProcessedFrame frame) throws Exception
+        {
+            ImageWriter images = imageWriter.forFrame(frame);
+            List<TextTrack> tracks = frame.getEndedTracks();
+            List<List<RecognizedWord>> trackWords = new ArrayList<>();
+            // The text blocks not found in the cache, with the index of their track and their hash
+            List<Mat> binaries = new ArrayList<>();
+            List<Integer> binaryTracks = new ArrayList<>();
+            List<long[]> hashes = new ArrayList<>();
+            for (TextTrack track : tracks){
+                Mat binary = OcrProcessor.binarizeTextBlock(track.getBestInstance(), images);
+                long[] hash = OcrCache.hash(binary);
+                List<RecognizedWord> cached = ocrCache.get(hash);
+                if (cached == null) {
+                    images.writeOutputImage(binary, OutputFolderNames.ocr_images);
+                    binaryTracks.add(trackWords.size());
+                    binaries.add(binary);
+                    hashes.add(hash);
+                } else {
+                    binary.release();
+                }
+                trackWords.add(cached);
+            }
+
+            if (!binaries.isEmpty()) {
+                List<List<RecognizedWord>> recognized = new ArrayList<>();
+                tesseract.TessBaseAPI ocrApi = ocrEngines.acquire(settings.getOcrLanguage());
+                try {
+                    for (OcrMosaic mosaic : OcrMosaic.pack(binaries, settings.getOcrBatchSize())) {
+                        recognized.addAll(mosaic.recognize(ocrApi, listener));
+                        ocrCalls.incrementAndGet();
+                    }
+                } finally {
+                    ocrEngines.release(settings.getOcrLanguage(), ocrApi);
+                    for (Mat binary : binaries) binary.release();
+                }
+                recognizedBlocks.addAndGet(binaries.size());
+                for (int i = 0; i < recognized.size(); i++) {
+                    List<RecognizedWord> corrected = correctWords(recognized.get(i));
+                    ocrCache.put(hashes.get(i), corrected);
+                    trackWords.set(binaryTracks.get(i), corrected);
+                }
+            }
+
+            List<OcrWord> words = new ArrayList<>();
+            for (int i = 0; i < tracks.size(); i++) {
+                TextTrack track = tracks.get(i);
+                for (RecognizedWord word : trackWords.get(i)) {
+                    words.add(new OcrWord(word.getText(), track.getFirstFrame(), track.getLastFrame(),
+                            fps > 0 ? (track.getFirstFrame() - 1) / fps : Double.NaN, word.getConfidence()));
+                }
+                track.release();
+            }
+            frame.setWords(words);
+        }
+
+        /**
+         * Drops the words below the noise floor and spell-checks the words which are not confident enough
+         */
+        private List<RecognizedWord> correctWords(List<RecognizedWord> recognized)
+        {
+            List<RecognizedWord> corrected = new ArrayList<>();
+            for (RecognizedWord word : recognized) {
+                if (word.getConfidence() < settings.getMinWordConfidence()) {
+                    droppedWords.incrementAndGet();
+                } else if (word.getConfidence() >= settings.getTrustedWordConfidence()) {
+                    trustedWords.incrementAndGet();
+                    corrected.add(word);
+                } else {
+                    checkedWords.incrementAndGet();
+                    corrected.add(word.withText(OcrProcessor.checkForSpelling(word.getText(), spellingEngine)));
+                }
+            }
+            return corrected;
+        }
+    }
+}
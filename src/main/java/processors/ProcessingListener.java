@@ -0,0 +1,27 @@
+package processors;
+
+import entities.OcrWord;
+
+import java.util.List;
+
+/**
+ * Receives the results and the progress of a {@link ProcessingJob}.
+ * Methods are called from the job's worker threads and must not block for long.
+ */
+public interface ProcessingListener
+{
+    /**
+     * @param message An informative message about the processing
+     */
+    void onInfo(String message);
+
+    /**
+     * @param words The newly extracted words, in the order their text blocks disappeared
+     */
+    void onWords(List<OcrWord> words);
+
+    /**
+     * @param progress The processed fraction of the video, from 0.0 to 1.0
+     */
+    void onProgress(double progress);
+}
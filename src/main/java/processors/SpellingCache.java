@@ -0,0 +1,144 @@
+package processors;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.languagetool.JLanguageTool;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A bounded memo of spelling corrections, from the cleaned OCR word to the word returned by the spell checker.
+ * The same words come back thousands of times per video, and checking them is the slowest part of the OCR stage.
+ *
+ * Thread-safe: the shared instance serves every OCR worker of every job. It can be persisted to a file,
+ * loaded when set and saved when the JVM shuts down, so later runs start with the earlier corrections.
+ * The file is ignored if it was written by a different LanguageTool version.
+ */
+public class SpellingCache
+{
+    private static final long MAXIMUM_SIZE = 100000;
+    private static final String FILE_HEADER = "# spelling corrections, LanguageTool " + JLanguageTool.VERSION;
+
+    private static SpellingCache shared;
+
+    private final Cache<String, String> corrections;
+    private volatile Path persistenceFile;
+
+    /**
+     * @param maximumSize The maximum number of cached words; the least recently used ones are evicted first
+     */
+    public SpellingCache(long maximumSize)
+    {
+        corrections = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return The cache shared by all jobs; it is saved to its persistence file, if any, when the JVM shuts down
+     */
+    public static synchronized SpellingCache getShared()
+    {
+        if (shared == null) {
+            shared = new SpellingCache(MAXIMUM_SIZE);
+            SpellingCache cache = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(cache::saveQuietly, "spelling-cache-shutdown"));
+        }
+        return shared;
+    }
+
+    /**
+     * @param word A cleaned OCR word
+     * @return Its cached correction, or null
+     */
+    public String get(String word) {
+        return corrections.getIfPresent(word);
+    }
+
+    /**
+     * @param word A cleaned OCR word
+     * @param correction The word returned by the spell checker
+     */
+    public void put(String word, String correction) {
+        corrections.put(word, correction);
+    }
+
+    /**
+     * @return The hit, miss and eviction counts since the cache was created
+     */
+    public CacheStats getStats() {
+        return corrections.stats();
+    }
+
+    public long size() {
+        return corrections.size();
+    }
+
+    /**
+     * Loads the corrections saved in the file, if it exists, and saves the cache there from now on
+     * @param file The persistence file
+     * @throws IOException If the file exists but cannot be read
+     */
+    public void setPersistenceFile(Path file) throws IOException
+    {
+        persistenceFile = file;
+        if (!Files.isRegularFile(file)) return;
+        Map<String, String> loaded = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!FILE_HEADER.equals(reader.readLine())) return;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator >= 0) loaded.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        // Loaded entries do not count as hits or misses
+        corrections.putAll(loaded);
+    }
+
+    /**
+     * Writes the cached corrections to the persistence file, if one is set
+     * @throws IOException If the file cannot be written
+     */
+    public void save() throws IOException
+    {
+        Path file = persistenceFile;
+        if (file == null) return;
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(FILE_HEADER);
+            writer.newLine();
+            for (Map.Entry<String, String> entry : corrections.asMap().entrySet()) {
+                if (isStorable(entry.getKey()) && isStorable(entry.getValue())) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+        }
+        // Replace the previous file only once the new one is complete
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void saveQuietly()
+    {
+        try {
+            save();
+        } catch (IOException e) {
+            System.err.println("Failed to save the spelling cache: " + e.getMessage());
+        }
+    }
+
+    private static boolean isStorable(String word) {
+        return word.indexOf('\t') < 0 && word.indexOf('\n') < 0 && word.indexOf('\r') < 0;
+    }
+}
@@ -0,0 +1,22 @@
+package processors;
+
+import java.io.IOException;
+
+/**
+ * Corrects the spelling of single OCR words.
+ * Implementations are thread-safe and shared by the OCR workers of every job.
+ */
+public interface SpellingEngine
+{
+    /**
+     * @param word A word cleaned of special characters
+     * @return The corrected word, or a space if the word is misspelled and no correction is known
+     * @throws IOException If the check itself failed; the word is then kept unchanged
+     */
+    String correct(String word) throws IOException;
+
+    /**
+     * @return A short description for the job's log, e.g. "LanguageTool"
+     */
+    String getDescription();
+}
@@ -0,0 +1,360 @@
+package processors;
+
+import entities.ApplicationPaths;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The fast spelling mode: corrects a word to the most frequent dictionary word within the smallest edit distance
+ * (Damerau-Levenshtein, up to 2), using a symmetric delete index.
+ * Every dictionary word is indexed under the strings obtained by deleting up to 2 characters from its prefix,
+ * so a lookup only generates the deletes of the misspelled word and compares it with the few words indexed under them.
+ *
+ * The dictionary of a language is built from the word frequency list {@code <language>_frequency.txt} found in
+ * {@link ApplicationPaths#RESOURCES_OCR_LANGUAGES}, one word and its count per line, and stored next to it
+ * in a binary index file, which is rebuilt when the list changes.
+ *
+ * Thread-safe: immutable once built.
+ */
+public class SymSpellEngine implements SpellingEngine
+{
+    static final String FREQUENCY_LIST_SUFFIX = "_frequency.txt";
+    static final String INDEX_SUFFIX = "_frequency.idx";
+
+    private static final int INDEX_MAGIC = 0x53594d31;
+    private static final int MAX_EDIT_DISTANCE = 2;
+    // Only the first characters of the words are indexed, which keeps the index small at no loss of accuracy
+    private static final int PREFIX_LENGTH = 7;
+
+    private static final Map<String, SymSpellEngine> dictionaries = new HashMap<>();
+
+    // Sorted, lower case, dictionary words; a word's id is its position
+    private final String[] words;
+    private final int[] counts;
+    // Sorted distinct hashes of the deletes, and for each one the ids of the words indexed under it
+    private final int[] deleteHashes;
+    private final int[] deleteOffsets;
+    private final int[] wordIds;
+    private final int maxWordLength;
+
+    private SymSpellEngine(String[] words, int[] counts, int[] deleteHashes, int[] deleteOffsets, int[] wordIds)
+    {
+        this.words = words;
+        this.counts = counts;
+        this.deleteHashes = deleteHashes;
+        this.deleteOffsets = deleteOffsets;
+        this.wordIds = wordIds;
+        int maxLength = 0;
+        for (String word : words) maxLength = Math.max(maxLength, word.length());
+        this.maxWordLength = maxLength;
+    }
+
+    /**
+     * Loads the dictionary of a language, building its index file first if it is missing or older than the word list.
+     * Loaded dictionaries are kept for the lifetime of the JVM
+     * @param language The tesseract language code, e.g. "eng"
+     * @return The dictionary, or null if the language has no word frequency list
+     * @throws IOException If the word frequency list cannot be read
+     */
+    public static synchronized SymSpellEngine forLanguage(String language) throws IOException
+    {
+        SymSpellEngine dictionary = dictionaries.get(language);
+        if (dictionary != null) return dictionary;
+        Path list = Paths.get(ApplicationPaths.RESOURCES_OCR_LANGUAGES, language + FREQUENCY_LIST_SUFFIX);
+        if (!Files.isRegularFile(list)) return null;
+        Path index = list.resolveSibling(language + INDEX_SUFFIX);
+        if (Files.isRegularFile(index) && !Files.getLastModifiedTime(index).toInstant().isBefore(
+                Files.getLastModifiedTime(list).toInstant())) {
+            try {
+                dictionary = load(index);
+            } catch (IOException e) {
+                // Rebuilt below
+            }
+        }
+        if (dictionary == null) {
+            dictionary = build(readFrequencyList(list));
+            try {
+                dictionary.save(index);
+            } catch (IOException e) {
+                // A read-only installation builds the index on every start
+            }
+        }
+        dictionaries.put(language, dictionary);
+        return dictionary;
+    }
+
+    /**
+     * @param list A word frequency list: a word and, optionally, its count on every line
+     * @return The counts of the lower case words
+     */
+    static Map<String, Integer> readFrequencyList(Path list) throws IOException
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(list, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.trim().split("\\s+");
+                if (columns[0].isEmpty() || columns[0].startsWith("#")) continue;
+                long count = 1;
+                if (columns.length > 1) {
+                    try {
+                        count = Long.parseLong(columns[1]);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                }
+                frequencies.merge(columns[0].toLowerCase(Locale.ROOT), (int) Math.min(Integer.MAX_VALUE, count),
+                        (a, b) -> (int) Math.min(Integer.MAX_VALUE, (long) a + b));
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * @param frequencies The counts of the lower case dictionary words
+     * @return The dictionary
+     */
+    static SymSpellEngine build(Map<String, Integer> frequencies)
+    {
+        TreeMap<String, Integer> sorted = new TreeMap<>(frequencies);
+        String[] words = sorted.keySet().toArray(new String[0]);
+        int[] counts = new int[words.length];
+        int id = 0;
+        for (int count : sorted.values()) counts[id++] = count;
+
+        // (hash of delete, word id) pairs, sorted so the ids of every hash are contiguous
+        long[] pairs = new long[Math.max(16, words.length * 8)];
+        int size = 0;
+        Set<String> deletes = new HashSet<>();
+        for (id = 0; id < words.length; id++) {
+            deletes.clear();
+            String prefix = words[id].substring(0, Math.min(PREFIX_LENGTH, words[id].length()));
+            deletes.add(prefix);
+            addDeletes(prefix, MAX_EDIT_DISTANCE, deletes);
+            Set<Integer> hashes = new HashSet<>();
+            for (String delete : deletes) hashes.add(delete.hashCode());
+            for (int hash : hashes) {
+                if (size == pairs.length) pairs = Arrays.copyOf(pairs, size * 2);
+                pairs[size++] = ((long) hash << 32) | id;
+            }
+        }
+        Arrays.sort(pairs, 0, size);
+
+        int hashCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) hashCount++;
+        }
+        int[] deleteHashes = new int[hashCount];
+        int[] deleteOffsets = new int[hashCount + 1];
+        int[] wordIds = new int[size];
+        int slot = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) {
+                deleteHashes[++slot] = (int) (pairs[i] >> 32);
+                deleteOffsets[slot] = i;
+            }
+            wordIds[i] = (int) pairs[i];
+        }
+        deleteOffsets[hashCount] = size;
+        return new SymSpellEngine(words, counts, deleteHashes, deleteOffsets, wordIds);
+    }
+
+    @Override
+    public String correct(String word)
+    {
+        // Numbers and empty strings are not words
+        if (word.isEmpty() || !word.chars().allMatch(Character::isLetter)) return word;
+        String lowerCase = word.toLowerCase(Locale.ROOT);
+        String suggestion = lookup(lowerCase);
+        if (suggestion == null) return " ";
+        if (suggestion.equals(lowerCase)) return word;
+        if (word.length() > 1 && word.equals(word.toUpperCase(Locale.ROOT))) return suggestion.toUpperCase(Locale.ROOT);
+        if (Character.isUpperCase(word.charAt(0))) return Character.toUpperCase(suggestion.charAt(0)) + suggestion.substring(1);
+        return suggestion;
+    }
+
+    @Override
+    public String getDescription() {
+        return "dictionary of " + words.length + " words";
+    }
+
+    /**
+     * @param input A lower case word
+     * @return The word itself if it is in the dictionary, otherwise the most frequent of the closest dictionary words,
+     *         or null if none is close enough. Short words allow fewer edits
+     */
+    String lookup(String input)
+    {
+        if (Arrays.binarySearch(words, input) >= 0) return input;
+        int maxDistance = Math.min(MAX_EDIT_DISTANCE, (input.length() - 1) / 2);
+        if (maxDistance == 0 || input.length() - maxDistance > maxWordLength) return null;
+
+        int best = -1;
+        int bestDistance = maxDistance + 1;
+        Set<String> consideredDeletes = new HashSet<>();
+        Set<Integer> consideredWords = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        int inputPrefixLength = Math.min(PREFIX_LENGTH, input.length());
+        candidates.add(input.substring(0, inputPrefixLength));
+        // Breadth first: candidates with fewer deletes come first
+        for (int c = 0; c < candidates.size(); c++) {
+            String candidate = candidates.get(c);
+            int deleted = inputPrefixLength - candidate.length();
+            if (deleted > bestDistance) break;
+
+            int slot = Arrays.binarySearch(deleteHashes, candidate.hashCode());
+            if (slot >= 0) {
+                for (int i = deleteOffsets[slot]; i < deleteOffsets[slot + 1]; i++) {
+                    int id = wordIds[i];
+                    if (!consideredWords.add(id)) continue;
+                    int distance = distance(input, words[id], Math.min(maxDistance, bestDistance));
+                    if (distance < bestDistance || (distance == bestDistance && best >= 0 && counts[id] > counts[best])) {
+                        best = id;
+                        bestDistance = distance;
+                    }
+                }
+            }
+            if (deleted < maxDistance) {
+                for (int i = 0; i < candidate.length(); i++) {
+                    String delete = candidate.substring(0, i) + candidate.substring(i + 1);
+                    if (consideredDeletes.add(delete)) candidates.add(delete);
+                }
+            }
+        }
+        return best < 0 ? null : words[best];
+    }
+
+    /**
+     * Writes the dictionary and its delete index in the binary format read by {@link #load(Path)}
+     * @param file The index file; replaced only once completely written
+     */
+    void save(Path file) throws IOException
+    {
+        byte[][] encoded = new byte[words.length][];
+        for (int i = 0; i < words.length; i++) encoded[i] = words[i].getBytes(StandardCharsets.UTF_8);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(MAX_EDIT_DISTANCE);
+            out.writeInt(PREFIX_LENGTH);
+            out.writeInt(words.length);
+            out.writeInt(deleteHashes.length);
+            out.writeInt(wordIds.length);
+            for (int i = 0; i < words.length; i++) {
+                out.writeInt(counts[i]);
+                out.writeInt(encoded[i].length);
+            }
+            for (byte[] word : encoded) out.write(word);
+            for (int hash : deleteHashes) out.writeInt(hash);
+            for (int offset : deleteOffsets) out.writeInt(offset);
+            for (int id : wordIds) out.writeInt(id);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param file An index file written by {@link #save(Path)}
+     * @return The dictionary
+     * @throws IOException If the file cannot be read, or was written with other parameters
+     */
+    static SymSpellEngine load(Path file) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != MAX_EDIT_DISTANCE || buffer.getInt() != PREFIX_LENGTH) {
+                throw new IOException("Incompatible dictionary index " + file);
+            }
+            int wordCount = buffer.getInt();
+            int hashCount = buffer.getInt();
+            int idCount = buffer.getInt();
+            int[] counts = new int[wordCount];
+            int[] lengths = new int[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                counts[i] = buffer.getInt();
+                lengths[i] = buffer.getInt();
+            }
+            String[] words = new String[wordCount];
+            for (int i = 0; i < wordCount; i++) {
+                words[i] = new String(buffer.array(), buffer.position(), lengths[i], StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + lengths[i]);
+            }
+            int[] deleteHashes = readInts(buffer, hashCount);
+            int[] deleteOffsets = readInts(buffer, hashCount + 1);
+            int[] wordIds = readInts(buffer, idCount);
+            return new SymSpellEngine(words, counts, deleteHashes, deleteOffsets, wordIds);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated dictionary index " + file, e);
+        }
+    }
+
+    int size() {
+        return words.length;
+    }
+
+    /**
+     * Restricted Damerau-Levenshtein (optimal string alignment) distance
+     * @return The distance, or limit + 1 if it exceeds the limit
+     */
+    static int distance(String a, String b, int limit)
+    {
+        if (Math.abs(a.length() - b.length()) > limit) return limit + 1;
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > limit) return limit + 1;
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    private static void addDeletes(String word, int depth, Set<String> deletes)
+    {
+        for (int i = 0; i < word.length(); i++) {
+            String delete = word.substring(0, i) + word.substring(i + 1);
+            if (deletes.add(delete) && depth > 1) addDeletes(delete, depth - 1, deletes);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count)
+    {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
@@ -0,0 +1,119 @@
+package processors;
+
+import entities.ProcessingSettings;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Joins the text blocks of a frame which belong to the same text, before they are tracked and passed to OCR.
+ * Dilation often breaks a caption line into several components; every one of them would otherwise be
+ * a separate OCR call, returning fragments of the same words.
+ *
+ * Two blocks are replaced by their bounding box when one is contained in the other or they overlap by at least
+ * the intersection over union threshold (suppression), or when they are on the same line, i.e. they overlap
+ * vertically by at least half the height of the shorter one, and the horizontal gap between them is at most
+ * the maximum gap, relative to the height of the taller one (merging). This repeats until no pair qualifies.
+ *
+ * Thread-safe: the counters are shared by the classification workers of a job.
+ */
+public class TextBlockMerger
+{
+    private static final double MIN_LINE_OVERLAP = 0.5;
+
+    private final double maxGap;
+    private final double iouThreshold;
+    private final AtomicInteger inputBlocks = new AtomicInteger();
+    private final AtomicInteger mergedBlocks = new AtomicInteger();
+    private final AtomicInteger suppressedBlocks = new AtomicInteger();
+
+    /**
+     * @param settings The maximum gap and the intersection over union threshold
+     */
+    public TextBlockMerger(ProcessingSettings settings)
+    {
+        this.maxGap = settings.getMaxMergeGap();
+        this.iouThreshold = settings.getMergeIouThreshold();
+    }
+
+    /**
+     * @param textBlocks The text blocks of a frame
+     * @return The blocks left once merged, in order of their left edge
+     */
+    public List<Rect> merge(List<Rect> textBlocks)
+    {
+        inputBlocks.addAndGet(textBlocks.size());
+        List<Rect> blocks = new ArrayList<>(textBlocks);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            blocks.sort((a, b) -> Integer.compare(a.x, b.x));
+            for (int i = 0; i < blocks.size() && !changed; i++) {
+                for (int j = i + 1; j < blocks.size(); j++) {
+                    Rect a = blocks.get(i);
+                    Rect b = blocks.get(j);
+                    if (contains(a, b) || contains(b, a) || TextBlockTracker.intersectionOverUnion(a, b) >= iouThreshold) {
+                        suppressedBlocks.incrementAndGet();
+                    } else if (isSameLine(a, b)) {
+                        mergedBlocks.incrementAndGet();
+                    } else {
+                        continue;
+                    }
+                    blocks.set(i, union(a, b));
+                    blocks.remove(j);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return The number of text blocks given to {@link #merge(List)} so far
+     */
+    public int getInputBlocks() {
+        return inputBlocks.get();
+    }
+
+    /**
+     * @return The number of blocks joined with a block on the same line so far
+     */
+    public int getMergedBlocks() {
+        return mergedBlocks.get();
+    }
+
+    /**
+     * @return The number of blocks joined with a containing or overlapping block so far
+     */
+    public int getSuppressedBlocks() {
+        return suppressedBlocks.get();
+    }
+
+    /**
+     * @param a A block
+     * @param b A block starting at or right of a
+     */
+    private boolean isSameLine(Rect a, Rect b)
+    {
+        int verticalOverlap = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (verticalOverlap < MIN_LINE_OVERLAP * Math.min(a.height, b.height)) return false;
+        int gap = b.x - (a.x + a.width);
+        return gap <= maxGap * Math.max(a.height, b.height);
+    }
+
+    private static boolean contains(Rect outer, Rect inner)
+    {
+        return inner.x >= outer.x && inner.y >= outer.y
+                && inner.x + inner.width <= outer.x + outer.width && inner.y + inner.height <= outer.y + outer.height;
+    }
+
+    private static Rect union(Rect a, Rect b)
+    {
+        int x = Math.min(a.x, b.x);
+        int y = Math.min(a.y, b.y);
+        return new Rect(x, y, Math.max(a.x + a.width, b.x + b.width) - x, Math.max(a.y + a.height, b.y + b.height) - y);
+    }
+}
@@ -0,0 +1,179 @@
+package processors;
+
+import entities.TextTrack;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Follows the text blocks across the analysed frames, so every caption is passed to OCR only once.
+ * A text block continues a track when it overlaps the track's last block (intersection over union)
+ * and looks like it (mean difference of small, contrast-normalized, grayscale thumbnails).
+ * A few pixels of jitter in the block boundaries stay well below the difference threshold,
+ * while different text in the same place, e.g. the next subtitle, is well above it.
+ * Tracks end when their text block is missing from more than one consecutive analysed frame,
+ * or at the end of the processed frames.
+ *
+ * Not thread-safe: runs on a single, ordered, pipeline stage.
+ */
+public class TextBlockTracker
+{
+    private static final double MIN_OVERLAP = 0.5;
+    private static final double MAX_APPEARANCE_DIFFERENCE = 15.0;
+    private static final int MAX_MISSED_FRAMES = 1;
+    private static final Size APPEARANCE_SIZE = new Size(32, 16);
+
+    private final List<TextTrack> activeTracks = new ArrayList<>();
+    private final Mat gray = new Mat();
+    private final Mat laplace = new Mat();
+    private final Mat difference = new Mat();
+    private int endedTracks;
+    private int sightings;
+
+    /**
+     * Matches the text blocks of the next analysed frame with the active tracks
+     * @param frameNumber The number of the analysed frame
+     * @param lastFrameNumber The number of the last video frame sharing the text blocks of the analysed frame
+     * @param textBlocks The text blocks found in the analysed frame
+     * @param frame The analysed frame
+     * @param lastFrame Whether no more frames follow, so every track ends
+     * @return The tracks which ended with this frame, ordered by their first frame. The caller must release them
+     */
+    public List<TextTrack> update(int frameNumber, int lastFrameNumber, List<Rect> textBlocks, Mat frame, boolean lastFrame)
+    {
+        List<Mat> crops = ImageProcessor.getCroppedTextBlocks(textBlocks, frame);
+        List<Mat> appearances = new ArrayList<>();
+        for (Mat crop : crops) appearances.add(computeAppearance(crop));
+
+        // Greedy assignment, starting from the most overlapping pairs
+        List<double[]> candidates = new ArrayList<>();
+        for (int t = 0; t < activeTracks.size(); t++) {
+            for (int b = 0; b < textBlocks.size(); b++) {
+                double overlap = intersectionOverUnion(activeTracks.get(t).getBox(), textBlocks.get(b));
+                if (overlap >= MIN_OVERLAP) candidates.add(new double[]{overlap, t, b});
+            }
+        }
+        candidates.sort(Comparator.comparingDouble((double[] candidate) -> candidate[0]).reversed());
+        TextTrack[] blockTracks = new TextTrack[textBlocks.size()];
+        boolean[] trackMatched = new boolean[activeTracks.size()];
+        for (double[] candidate : candidates) {
+            int t = (int) candidate[1];
+            int b = (int) candidate[2];
+            if (trackMatched[t] || blockTracks[b] != null) continue;
+            Core.absdiff(activeTracks.get(t).getAppearance(), appearances.get(b), difference);
+            if (Core.mean(difference).val[0] > MAX_APPEARANCE_DIFFERENCE) continue;
+            trackMatched[t] = true;
+            blockTracks[b] = activeTracks.get(t);
+        }
+
+        List<TextTrack> ended = new ArrayList<>();
+        List<TextTrack> remaining = new ArrayList<>();
+        for (int t = 0; t < activeTracks.size(); t++) {
+            TextTrack track = activeTracks.get(t);
+            if (!trackMatched[t] && (lastFrame || track.miss() > MAX_MISSED_FRAMES)) {
+                ended.add(track);
+            } else {
+                remaining.add(track);
+            }
+        }
+        for (int b = 0; b < textBlocks.size(); b++) {
+            TextTrack track = blockTracks[b];
+            if (track == null) {
+                track = new TextTrack(frameNumber);
+                remaining.add(track);
+            }
+            track.addSighting(textBlocks.get(b), appearances.get(b), crops.get(b), sharpness(crops.get(b)), lastFrameNumber);
+            sightings++;
+        }
+        activeTracks.clear();
+        if (lastFrame) {
+            ended.addAll(remaining);
+        } else {
+            activeTracks.addAll(remaining);
+        }
+
+        for (TextTrack track : ended) track.end();
+        ended.sort(Comparator.comparingInt(TextTrack::getFirstFrame));
+        endedTracks += ended.size();
+        return ended;
+    }
+
+    /**
+     * @return The number of tracks ended so far, i.e. the text blocks passed to OCR
+     */
+    public int getEndedTracks() {
+        return endedTracks;
+    }
+
+    /**
+     * @return The number of text blocks matched or added to tracks so far
+     */
+    public int getSightings() {
+        return sightings;
+    }
+
+    /**
+     * @return The tracks which have not ended, in no particular order
+     */
+    List<TextTrack> getActiveTracks() {
+        return Collections.unmodifiableList(activeTracks);
+    }
+
+    /**
+     * Releases the images of the tracks which have not ended
+     */
+    public void close()
+    {
+        for (TextTrack track : activeTracks) track.release();
+        activeTracks.clear();
+        gray.release();
+        laplace.release();
+        difference.release();
+    }
+
+    /**
+     * @return The area of the intersection of the two rectangles divided by the area of their union
+     */
+    public static double intersectionOverUnion(Rect a, Rect b)
+    {
+        int width = Math.min(a.x + a.width, b.x + b.width) - Math.max(a.x, b.x);
+        int height = Math.min(a.y + a.height, b.y + b.height) - Math.max(a.y, b.y);
+        if (width <= 0 || height <= 0) return 0.0;
+        double intersection = (double) width * height;
+        return intersection / ((double) a.width * a.height + (double) b.width * b.height - intersection);
+    }
+
+    private Mat computeAppearance(Mat crop)
+    {
+        Imgproc.cvtColor(crop, gray, Imgproc.COLOR_RGB2GRAY, 0);
+        Mat appearance = new Mat();
+        Imgproc.resize(gray, appearance, APPEARANCE_SIZE, 0, 0, Imgproc.INTER_AREA);
+        Core.normalize(appearance, appearance, 0.0, 255.0, Core.NORM_MINMAX);
+        return appearance;
+    }
+
+    /**
+     * @return The variance of the Laplacian of the crop; blurred or fading text scores lower
+     */
+    private double sharpness(Mat crop)
+    {
+        Imgproc.cvtColor(crop, gray, Imgproc.COLOR_RGB2GRAY, 0);
+        Imgproc.Laplacian(gray, laplace, CvType.CV_64F);
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble deviation = new MatOfDouble();
+        Core.meanStdDev(laplace, mean, deviation);
+        double value = deviation.get(0, 0)[0];
+        mean.release();
+        deviation.release();
+        return value * value;
+    }
+}
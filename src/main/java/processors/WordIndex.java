@@ -0,0 +1,167 @@
+package processors;
+
+import entities.OcrWord;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The words extracted from a video, in order of first appearance, with the number of times each one was read
+ * and the first and last frame, and time, it was visible in.
+ *
+ * Every occurrence is appended to a JSON lines file as soon as it is added, so the results of a killed job are
+ * not lost and no occurrence is kept in memory. Closing the index writes the summary of every word to a CSV file.
+ *
+ * Not thread-safe: words are added in frame order by a single thread.
+ */
+public class WordIndex implements Closeable
+{
+    static final String OCCURRENCES_FILE_NAME = "words.jsonl";
+    static final String SUMMARY_FILE_NAME = "word_index.csv";
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Path outputFolder;
+    private final double fps;
+    private final BufferedWriter occurrences;
+    private boolean closed;
+
+    /**
+     * @param outputFolder The folder receiving the occurrences and summary files
+     * @param fps The frame rate of the video, used for the timestamps. Timestamps are left out if it is not positive
+     * @throws IOException If the occurrences file cannot be created
+     */
+    public WordIndex(Path outputFolder, double fps) throws IOException
+    {
+        this.outputFolder = outputFolder;
+        this.fps = fps;
+        this.occurrences = Files.newBufferedWriter(outputFolder.resolve(OCCURRENCES_FILE_NAME), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indexes the words and appends them to the occurrences file
+     * @param words Extracted words, in frame order
+     * @return The words seen for the first time, in the given order
+     * @throws IOException If the occurrences file cannot be written
+     */
+    public List<OcrWord> add(List<OcrWord> words) throws IOException
+    {
+        List<OcrWord> newWords = new ArrayList<>();
+        for (OcrWord word : words) {
+            if (word.getText().trim().isEmpty()) continue;
+            Entry entry = entries.get(word.getText());
+            if (entry == null) {
+                entries.put(word.getText(), new Entry(word));
+                newWords.add(word);
+            } else {
+                entry.add(word);
+            }
+            occurrences.write("{\"word\":" + quote(word.getText())
+                    + ",\"firstFrame\":" + word.getFirstFrame() + ",\"lastFrame\":" + word.getLastFrame()
+                    + ",\"firstTime\":" + time(word.getFirstFrame()) + ",\"lastTime\":" + time(word.getLastFrame())
+                    + ",\"confidence\":" + Math.round(word.getConfidence()) + "}");
+            occurrences.newLine();
+        }
+        occurrences.flush();
+        return newWords;
+    }
+
+    /**
+     * @return The number of distinct words
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @param word A word
+     * @return The number of times it was read, 0 if never
+     */
+    public int getCount(String word)
+    {
+        Entry entry = entries.get(word);
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * Closes the occurrences file and writes the summary file. Later calls do nothing
+     * @throws IOException If either file cannot be written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed) return;
+        closed = true;
+        occurrences.close();
+        try (BufferedWriter summary = Files.newBufferedWriter(outputFolder.resolve(SUMMARY_FILE_NAME), StandardCharsets.UTF_8)) {
+            summary.write("word,count,first_frame,last_frame,first_time,last_time");
+            summary.newLine();
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                summary.write(csvField(entry.getKey()) + "," + value.count + "," + value.firstFrame + "," + value.lastFrame
+                        + "," + csvTime(value.firstFrame) + "," + csvTime(value.lastFrame));
+                summary.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return The time of the frame's start in seconds, or null if the frame rate is unknown
+     */
+    private String time(int frameNumber)
+    {
+        if (fps <= 0) return "null";
+        return String.format(Locale.ROOT, "%.3f", (frameNumber - 1) / fps);
+    }
+
+    private String csvTime(int frameNumber)
+    {
+        return fps <= 0 ? "" : time(frameNumber);
+    }
+
+    private static String csvField(String text)
+    {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0) return text;
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String quote(String text)
+    {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static class Entry
+    {
+        private int count;
+        private int firstFrame;
+        private int lastFrame;
+
+        private Entry(OcrWord word)
+        {
+            count = 1;
+            firstFrame = word.getFirstFrame();
+            lastFrame = word.getLastFrame();
+        }
+
+        private void add(OcrWord word)
+        {
+            count++;
+            firstFrame = Math.min(firstFrame, word.getFirstFrame());
+            lastFrame = Math.max(lastFrame, word.getLastFrame());
+        }
+    }
+}
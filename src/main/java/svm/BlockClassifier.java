@@ -0,0 +1,163 @@
+package svm;
+
+import org.opencv.core.Mat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Classifies the candidate text blocks of a frame as a batch.
+ *
+ * The blocks of a batch are shared between the calling thread and the threads of a pool used by every job:
+ * each thread claims the next unclassified block until none is left, so the caller never waits for a pool
+ * thread which has not claimed a block yet. A block is rejected once more than
+ * {@link SVM#PREDICTION_THRESHOLD} of its cells score as non-text, and accepted once the cells left
+ * cannot reach that number, without scoring its remaining cells.
+ */
+public class BlockClassifier
+{
+    private static BlockClassifier shared;
+
+    private final ExecutorService pool;
+    private final int helpers;
+
+    /**
+     * @param threads The number of pool threads
+     */
+    public BlockClassifier(int threads)
+    {
+        AtomicInteger created = new AtomicInteger();
+        this.helpers = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "block-classifier-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The classifier shared by all jobs, with one thread per core
+     */
+    public static synchronized BlockClassifier getShared()
+    {
+        if (shared == null) {
+            shared = new BlockClassifier(Runtime.getRuntime().availableProcessors());
+        }
+        return shared;
+    }
+
+    /**
+     * @param blocks Grey, resized candidate text blocks
+     * @return The verdict of every block
+     * @throws InterruptedException If the calling thread was interrupted while pool threads classified blocks
+     */
+    public Batch classify(List<Mat> blocks) throws InterruptedException
+    {
+        Batch batch = new Batch(blocks.size());
+        if (blocks.isEmpty()) return batch;
+        AtomicInteger nextBlock = new AtomicInteger();
+        CountDownLatch classified = new CountDownLatch(blocks.size());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int block;
+            while ((block = nextBlock.getAndIncrement()) < blocks.size()) {
+                try {
+                    classify(blocks.get(block), block, batch);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    classified.countDown();
+                }
+            }
+        };
+        for (int i = Math.min(helpers, blocks.size() - 1); i > 0; i--) {
+            pool.execute(worker);
+        }
+        worker.run();
+        // Every block is claimed by now. The caller releases the blocks once this returns,
+        // so wait for the ones still being classified even if interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                classified.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) throw new InterruptedException();
+        if (failure.get() != null) throw failure.get();
+        return batch;
+    }
+
+    private static void classify(Mat block, int index, Batch batch)
+    {
+        BlockFeatures blockFeatures = BlockFeatures.extract(block);
+        CompiledModel model = SVM.getCompiledModel();
+        double[] doubleData = new double[LocalBinaryPattern.FEATURE_DIMENSIONS];
+        int cells = blockFeatures.getCells();
+        int negativeRegions = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            // The verdict cannot change any more
+            if (negativeRegions > SVM.PREDICTION_THRESHOLD || negativeRegions + cells - cell <= SVM.PREDICTION_THRESHOLD) {
+                batch.decidedEarly[index] = true;
+                break;
+            }
+            blockFeatures.getFeatures(cell, doubleData);
+            Training.normalizeArray(doubleData);
+            if (Double.compare(model.predict(doubleData), -1.0) == 0) negativeRegions++;
+        }
+        batch.containsText[index] = negativeRegions <= SVM.PREDICTION_THRESHOLD;
+    }
+
+    /**
+     * The verdicts of a batch of blocks
+     */
+    public static class Batch
+    {
+        private final boolean[] containsText;
+        private final boolean[] decidedEarly;
+
+        private Batch(int blocks)
+        {
+            containsText = new boolean[blocks];
+            decidedEarly = new boolean[blocks];
+        }
+
+        public int size() {
+            return containsText.length;
+        }
+
+        /**
+         * @param block The position of the block in the batch
+         * @return True if the block contains text
+         */
+        public boolean containsText(int block) {
+            return containsText[block];
+        }
+
+        /**
+         * @return The number of blocks containing text
+         */
+        public int getAccepted()
+        {
+            int accepted = 0;
+            for (boolean text : containsText) if (text) accepted++;
+            return accepted;
+        }
+
+        /**
+         * @return The number of blocks decided before all their cells were scored
+         */
+        public int getEarlyExits()
+        {
+            int earlyExits = 0;
+            for (boolean early : decidedEarly) if (early) earlyExits++;
+            return earlyExits;
+        }
+    }
+}
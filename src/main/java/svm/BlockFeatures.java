@@ -0,0 +1,98 @@
+package svm;
+
+import org.opencv.core.Mat;
+import processors.FrameBuffer;
+
+/**
+ * The LBP features of a text block: one uniform pattern histogram per 10x10 cell, the same as
+ * {@link LocalBinaryPattern#get_ULBP_Features(Mat)} of every subregion returned by {@link Training#getSubregions(Mat)}.
+ *
+ * The block is read once and the pattern bin of every pixel is computed in one pass over the whole block;
+ * a second pass counts the bins of each cell, skipping the cell borders as the per-subregion extraction does,
+ * into one contiguous array of histograms.
+ */
+public class BlockFeatures
+{
+    public static final int CELL_SIZE = 10;
+
+    private final int cells;
+    private final int[] histograms;
+
+    private BlockFeatures(int cells, int[] histograms)
+    {
+        this.cells = cells;
+        this.histograms = histograms;
+    }
+
+    /**
+     * @param block The text block, of depth CV_8U and a size multiple of 10; only the first channel is used
+     * @return The histograms of its cells
+     */
+    public static BlockFeatures extract(Mat block)
+    {
+        byte[] pixels = FrameBuffer.getBytes(block, null);
+        return extract(pixels, block.rows(), block.cols(), block.channels());
+    }
+
+    /**
+     * @param pixels The pixel values of the block, row by row
+     * @param rows The number of rows of the block
+     * @param cols The number of columns of the block
+     * @param channels The number of channels of the block; only the first one is used
+     * @return The histograms of its cells. Cells cut by the bottom or right edge are left out
+     */
+    public static BlockFeatures extract(byte[] pixels, int rows, int cols, int channels)
+    {
+        int cellRows = rows / CELL_SIZE;
+        int cellCols = cols / CELL_SIZE;
+        int dimensions = LocalBinaryPattern.FEATURE_DIMENSIONS;
+        byte[] bins = LocalBinaryPattern.getBinMap(pixels, rows, cols, channels, new byte[rows * cols]);
+        int[] histograms = new int[cellRows * cellCols * dimensions];
+
+        for (int cellRow = 0; cellRow < cellRows; cellRow++)
+        {
+            // Cells are numbered row by row, in the order of Training.getSubregions
+            int firstCell = cellRow * cellCols;
+            for (int x = cellRow * CELL_SIZE + 1; x < (cellRow + 1) * CELL_SIZE - 1; x++)
+            {
+                for (int cellCol = 0; cellCol < cellCols; cellCol++)
+                {
+                    int histogram = (firstCell + cellCol) * dimensions;
+                    int pixel = x * cols + cellCol * CELL_SIZE;
+                    for (int y = 1; y < CELL_SIZE - 1; y++) {
+                        histograms[histogram + bins[pixel + y]]++;
+                    }
+                }
+            }
+        }
+        return new BlockFeatures(cellRows * cellCols, histograms);
+    }
+
+    /**
+     * @return The number of cells
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * @param cell A cell number, counting row by row
+     * @param features Array of length 59 receiving the cell's histogram
+     * @return The features array
+     */
+    public double[] getFeatures(int cell, double[] features)
+    {
+        int offset = cell * LocalBinaryPattern.FEATURE_DIMENSIONS;
+        for (int i = 0; i < LocalBinaryPattern.FEATURE_DIMENSIONS; i++) {
+            features[i] = histograms[offset + i];
+        }
+        return features;
+    }
+
+    /**
+     * @return The histograms of all cells, one after the other. Not a copy
+     */
+    public int[] getHistograms() {
+        return histograms;
+    }
+}
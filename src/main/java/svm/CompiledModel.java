@@ -0,0 +1,91 @@
+package svm;
+
+import libsvm.svm;
+import libsvm.svm_model;
+import libsvm.svm_node;
+import libsvm.svm_parameter;
+
+/**
+ * Scores feature vectors with a libsvm model.
+ *
+ * The decision function of a one-class model with a linear kernel is sum(coef_i * (sv_i . x)) - rho, which is
+ * w . x - rho with w = sum(coef_i * sv_i). That weight vector is computed once, when the model is compiled,
+ * so a prediction is a single dot product instead of one per support vector, and allocates nothing.
+ * Other models are evaluated by libsvm.
+ *
+ * Thread-safe: the compiled model is immutable.
+ */
+public class CompiledModel
+{
+    private final svm_model model;
+    // Null if the model is not a linear one-class model
+    private final double[] weights;
+    private final double rho;
+
+    private CompiledModel(svm_model model, double[] weights)
+    {
+        this.model = model;
+        this.weights = weights;
+        this.rho = model.rho[0];
+    }
+
+    /**
+     * @param model A trained or loaded libsvm model
+     * @return The compiled model
+     */
+    public static CompiledModel compile(svm_model model)
+    {
+        if (model.param.svm_type != svm_parameter.ONE_CLASS || model.param.kernel_type != svm_parameter.LINEAR) {
+            return new CompiledModel(model, null);
+        }
+        int dimensions = 0;
+        for (svm_node[] supportVector : model.SV) {
+            for (svm_node node : supportVector) {
+                dimensions = Math.max(dimensions, node.index + 1);
+            }
+        }
+        double[] weights = new double[dimensions];
+        for (int i = 0; i < model.l; i++) {
+            double coefficient = model.sv_coef[0][i];
+            for (svm_node node : model.SV[i]) {
+                weights[node.index] += coefficient * node.value;
+            }
+        }
+        return new CompiledModel(model, weights);
+    }
+
+    /**
+     * @return Whether predictions use the weight vector rather than libsvm
+     */
+    public boolean isLinear() {
+        return weights != null;
+    }
+
+    /**
+     * @param features The feature vector; feature i has index i in the model
+     * @return The same label as svm_predict: for a one-class model, 1 for an inlier and -1 for an outlier
+     */
+    public double predict(double[] features)
+    {
+        if (weights == null) {
+            return svm.svm_predict(model, SVM.toNodes(features));
+        }
+        return decisionValue(features) > 0 ? 1 : -1;
+    }
+
+    /**
+     * @param features The feature vector; feature i has index i in the model
+     * @return The signed distance to the separating hyperplane, w . x - rho
+     * @throws IllegalStateException If the model is not a linear one-class model
+     */
+    public double decisionValue(double[] features)
+    {
+        if (weights == null) throw new IllegalStateException("Not a linear one-class model");
+        int length = Math.min(weights.length, features.length);
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += weights[i] * features[i];
+        }
+        return sum - rho;
+    }
+}
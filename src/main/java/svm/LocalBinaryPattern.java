@@ -4,6 +4,9 @@ import cern.colt.list.IntArrayList;
 import cern.colt.map.OpenIntIntHashMap;
 import libsvm.svm;
 import org.opencv.core.Mat;
+import processors.FrameBuffer;
+
+import java.util.Arrays;
 
 public class LocalBinaryPattern {
 
@@ -11,7 +14,9 @@ public class LocalBinaryPattern {
     private static final int NON_UNIFORM_BIN = 999;
 
     // 59 dimensions feature vector, based on the LocalBinaryPattern histogram
+    public static final int FEATURE_DIMENSIONS = 59;
     private static OpenIntIntHashMap histogramTemplate = getHistogramTemplate();
+    private static final byte[] UNIFORM_BINS = getUniformBins();
 
     /**
      * Extracts features from a Mat image based on the LocalBinaryPattern (Uniform Rotated Local Binary Pattern) as
@@ -24,22 +29,28 @@ public class LocalBinaryPattern {
         // Using: R(Radius) = 1, P(Pixel Neighbours) = 8
         OpenIntIntHashMap histogram = (OpenIntIntHashMap) histogramTemplate.clone();
 
+        // Read the whole image at once; only the first channel is used
+        byte[] pixels = FrameBuffer.getBytes(image, null);
+        int channels = image.channels();
+        int rowStep = image.cols() * channels;
+        double[] diffs = new double[8];
+
         for (int x=1; x < image.rows() - 1; x++)
         {
             for (int y=1; y < image.cols() - 1; y++)
             {
-                double[] diffs = new double[8];
+                int c = x * rowStep + y * channels;
                 // TODO try with >= !!!!!!!
                 // Find the differences between the current center pixel and its neighbours
-                double center = image.get(x,y)[0]; // Starting from the same row, right column pixel, clockwise
-                diffs[0] = (Double.compare(image.get(x,y+1)[0], center) > 0) ? image.get(x,y+1)[0] - center : 0.0;
-                diffs[1] = (Double.compare(image.get(x+1,y+1)[0],center) > 0) ? image.get(x+1,y+1)[0] - center : 0.0;
-                diffs[2] = (Double.compare(image.get(x+1,y)[0],center) > 0) ? image.get(x+1,y)[0] - center : 0.0;
-                diffs[3] = (Double.compare(image.get(x+1,y-1)[0],center) > 0) ? image.get(x+1,y-1)[0] - center : 0.0;
-                diffs[4] = (Double.compare(image.get(x,y-1)[0],center) > 0) ? image.get(x,y-1)[0] - center : 0.0;
-                diffs[5] = (Double.compare(image.get(x-1,y-1)[0],center) > 0) ? image.get(x-1,y-1)[0] - center : 0.0;
-                diffs[6] = (Double.compare(image.get(x-1,y)[0],center) > 0) ? image.get(x-1,y)[0] - center : 0.0;
-                diffs[7] = (Double.compare(image.get(x-1,y+1)[0],center) > 0) ? image.get(x-1,y+1)[0] - center : 0.0;
+                double center = pixels[c] & 0xFF; // Starting from the same row, right column pixel, clockwise
+                diffs[0] = positiveDifference(pixels[c + channels], center);
+                diffs[1] = positiveDifference(pixels[c + rowStep + channels], center);
+                diffs[2] = positiveDifference(pixels[c + rowStep], center);
+                diffs[3] = positiveDifference(pixels[c + rowStep - channels], center);
+                diffs[4] = positiveDifference(pixels[c - channels], center);
+                diffs[5] = positiveDifference(pixels[c - rowStep - channels], center);
+                diffs[6] = positiveDifference(pixels[c - rowStep], center);
+                diffs[7] = positiveDifference(pixels[c - rowStep + channels], center);
 
                 // Finding the dominant direction pixel i.e. the pixel with the biggest difference
                 double max = Double.MIN_VALUE;
@@ -94,6 +105,12 @@ public class LocalBinaryPattern {
         return valueList.elements(); // returning the 59 freq-values of the histogram
     }
 
+    private static double positiveDifference(byte neighbour, double center)
+    {
+        double value = neighbour & 0xFF;
+        return (Double.compare(value, center) > 0) ? value - center : 0.0;
+    }
+
     private static boolean isBinaryUniform(int[] binary)
     {
         int transitions = 0;
@@ -127,25 +144,38 @@ public class LocalBinaryPattern {
     }
 
     public static int[] get_ULBP_Features(Mat image)
+    {
+        // Read the whole image at once; only the first channel is used
+        byte[] pixels = FrameBuffer.getBytes(image, null);
+        return get_ULBP_Features(pixels, image.rows(), image.cols(), image.channels());
+    }
+
+    /**
+     * The reference implementation of {@link #getUniformFeatures(byte[], int, int, int, int[])}
+     */
+    static int[] get_ULBP_Features(byte[] pixels, int rows, int cols, int channels)
     {
         // Using: R(Radius) = 1, P(Pixel Neighbours) = 8
         OpenIntIntHashMap histogram = (OpenIntIntHashMap) histogramTemplate.clone();
 
-        for (int x=1; x < image.rows() - 1; x++)
+        int rowStep = cols * channels;
+        int[] diffs = new int[8];
+
+        for (int x=1; x < rows - 1; x++)
         {
-            for (int y=1; y < image.cols() - 1; y++)
+            for (int y=1; y < cols - 1; y++)
             {
-                int[] diffs = new int[8];
+                int c = x * rowStep + y * channels;
                 // Find the differences between the current center pixel and its neighbours
-                double center = image.get(x,y)[0]; // Starting from the same row, right column pixel, clockwise
-                diffs[0] = (Double.compare(image.get(x,y+1)[0], center) > 0) ? 1 : 0;
-                diffs[1] = (Double.compare(image.get(x+1,y+1)[0],center) > 0) ? 1 : 0;
-                diffs[2] = (Double.compare(image.get(x+1,y)[0],center) > 0) ? 1 : 0;
-                diffs[3] = (Double.compare(image.get(x+1,y-1)[0],center) > 0) ? 1 : 0;
-                diffs[4] = (Double.compare(image.get(x,y-1)[0],center) > 0) ? 1 : 0;
-                diffs[5] = (Double.compare(image.get(x-1,y-1)[0],center) > 0) ? 1 : 0;
-                diffs[6] = (Double.compare(image.get(x-1,y)[0],center) > 0) ? 1 : 0;
-                diffs[7] = (Double.compare(image.get(x-1,y+1)[0],center) > 0) ? 1 : 0;
+                int center = pixels[c] & 0xFF; // Starting from the same row, right column pixel, clockwise
+                diffs[0] = ((pixels[c + channels] & 0xFF) > center) ? 1 : 0;
+                diffs[1] = ((pixels[c + rowStep + channels] & 0xFF) > center) ? 1 : 0;
+                diffs[2] = ((pixels[c + rowStep] & 0xFF) > center) ? 1 : 0;
+                diffs[3] = ((pixels[c + rowStep - channels] & 0xFF) > center) ? 1 : 0;
+                diffs[4] = ((pixels[c - channels] & 0xFF) > center) ? 1 : 0;
+                diffs[5] = ((pixels[c - rowStep - channels] & 0xFF) > center) ? 1 : 0;
+                diffs[6] = ((pixels[c - rowStep] & 0xFF) > center) ? 1 : 0;
+                diffs[7] = ((pixels[c - rowStep + channels] & 0xFF) > center) ? 1 : 0;
 
                 int decimal = 0;
                 int power = 1;
@@ -172,4 +202,113 @@ public class LocalBinaryPattern {
         return valueList.elements(); // returning the 59 freq-values of the histogram
     }
 
+    /**
+     * Extracts the same features as {@link #get_ULBP_Features(Mat)}, reading the image once and mapping every
+     * pattern to its histogram bin through a lookup table
+     * @param image The Mat image, of depth CV_8U; only the first channel is used
+     * @return A 59-length feature vector: the frequencies of the uniform patterns in increasing order,
+     * followed by the frequency of all non-uniform patterns
+     */
+    public static int[] getUniformFeatures(Mat image)
+    {
+        byte[] pixels = FrameBuffer.getBytes(image, null);
+        return getUniformFeatures(pixels, image.rows(), image.cols(), image.channels(), new int[FEATURE_DIMENSIONS]);
+    }
+
+    /**
+     * @param pixels The pixel values of the image, row by row
+     * @param rows The number of rows of the image
+     * @param cols The number of columns of the image
+     * @param channels The number of channels of the image; only the first one is used
+     * @param histogram Array of length 59 receiving the feature vector; it is cleared first
+     * @return The histogram array
+     */
+    public static int[] getUniformFeatures(byte[] pixels, int rows, int cols, int channels, int[] histogram)
+    {
+        Arrays.fill(histogram, 0);
+        int rowStep = cols * channels;
+        for (int x = 1; x < rows - 1; x++)
+        {
+            int above = (x - 1) * rowStep;
+            int row = x * rowStep;
+            int below = (x + 1) * rowStep;
+            for (int y = 1; y < cols - 1; y++)
+            {
+                int left = (y - 1) * channels;
+                int middle = y * channels;
+                int right = (y + 1) * channels;
+                histogram[uniformBin(pixels, above, row, below, left, middle, right)]++;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Computes the histogram bin of every pixel of the image, except the ones on its border
+     * @param pixels The pixel values of the image, row by row
+     * @param rows The number of rows of the image
+     * @param cols The number of columns of the image
+     * @param channels The number of channels of the image; only the first one is used
+     * @param bins Array of length rows * cols receiving the bin of each pixel, row by row; border pixels are left as is
+     * @return The bins array
+     */
+    public static byte[] getBinMap(byte[] pixels, int rows, int cols, int channels, byte[] bins)
+    {
+        int rowStep = cols * channels;
+        for (int x = 1; x < rows - 1; x++)
+        {
+            int above = (x - 1) * rowStep;
+            int row = x * rowStep;
+            int below = (x + 1) * rowStep;
+            for (int y = 1; y < cols - 1; y++)
+            {
+                bins[x * cols + y] = (byte) uniformBin(pixels, above, row, below, (y - 1) * channels, y * channels, (y + 1) * channels);
+            }
+        }
+        return bins;
+    }
+
+    /**
+     * @param above Offset of the row above the center pixel
+     * @param row Offset of the center pixel's row
+     * @param below Offset of the row below the center pixel
+     * @param left Offset of the column left of the center pixel, within a row
+     * @param middle Offset of the center pixel's column, within a row
+     * @param right Offset of the column right of the center pixel, within a row
+     * @return The histogram bin of the center pixel's pattern
+     */
+    private static int uniformBin(byte[] pixels, int above, int row, int below, int left, int middle, int right)
+    {
+        int center = pixels[row + middle] & 0xFF;
+        // (center - neighbour) is negative, so its sign bit set, when the neighbour is greater.
+        // Starting from the same row, right column pixel, clockwise
+        int code = ((center - (pixels[row + right] & 0xFF)) >>> 31)
+                | ((center - (pixels[below + right] & 0xFF)) >>> 31) << 1
+                | ((center - (pixels[below + middle] & 0xFF)) >>> 31) << 2
+                | ((center - (pixels[below + left] & 0xFF)) >>> 31) << 3
+                | ((center - (pixels[row + left] & 0xFF)) >>> 31) << 4
+                | ((center - (pixels[above + left] & 0xFF)) >>> 31) << 5
+                | ((center - (pixels[above + middle] & 0xFF)) >>> 31) << 6
+                | ((center - (pixels[above + right] & 0xFF)) >>> 31) << 7;
+        return UNIFORM_BINS[code];
+    }
+
+    /**
+     * @return The histogram bin of every 8-bit pattern: uniform patterns get their rank among the uniform
+     * patterns, all others share the last bin, as in the sorted {@link #histogramTemplate}
+     */
+    private static byte[] getUniformBins()
+    {
+        byte[] bins = new byte[256];
+        int uniformPatterns = 0;
+        for (int i=0; i <= 255; i++)
+        {
+            bins[i] = isBinaryUniform(convertToBinary(i)) ? (byte) uniformPatterns++ : -1;
+        }
+        for (int i=0; i <= 255; i++)
+        {
+            if (bins[i] < 0) bins[i] = (byte) uniformPatterns;
+        }
+        return bins;
+    }
 }
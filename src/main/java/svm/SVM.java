@@ -1,10 +1,6 @@
 package svm;
 
 import entities.ApplicationPaths;
-import javafx.application.Platform;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
-import org.opencv.core.Mat;
 import libsvm.*;
 import java.io.IOException;
 import java.nio.file.Paths;
@@ -18,20 +14,43 @@ public class SVM {
 
     private static svm_problem prob = new svm_problem();
     private static svm_parameter param = new svm_parameter();
-    private static svm_model model;
-    private static final int PREDICTION_THRESHOLD = 5;
+    private static volatile svm_model model;
+    private static volatile CompiledModel compiledModel;
+    static final int PREDICTION_THRESHOLD = 5;
 
-    static {
-        try {
-            model = svm.svm_load_model(Paths.get(ApplicationPaths.RESOURCES_MODELS,"10000.model").toFile().getAbsolutePath());
-        } catch (IOException e) {
-            Platform.runLater(()->{
-                new Alert(Alert.AlertType.ERROR, "Failed to load SVM model!", ButtonType.OK).showAndWait();
-                Platform.exit();
-            });
+    /**
+     * Loads the text classification model from the application's models folder.
+     * Should be called once at startup, so a missing model is reported before any video is processed;
+     * otherwise the model is loaded on first use.
+     * @throws IOException If the model cannot be read
+     */
+    public static synchronized void loadModel() throws IOException
+    {
+        if (model == null) {
+            svm_model loaded = svm.svm_load_model(Paths.get(ApplicationPaths.RESOURCES_MODELS,"10000.model").toFile().getAbsolutePath());
+            compiledModel = CompiledModel.compile(loaded);
+            model = loaded;
         }
     }
 
+    private static svm_model getModel()
+    {
+        if (model == null) {
+            try {
+                loadModel();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load SVM model", e);
+            }
+        }
+        return model;
+    }
+
+    static CompiledModel getCompiledModel()
+    {
+        getModel();
+        return compiledModel;
+    }
+
     public static void setParameters()
     {
         param.svm_type = svm_parameter.ONE_CLASS;
@@ -75,6 +94,11 @@ public class SVM {
     }
 
     public static double evaluate(double[] features, svm_model model)
+    {
+        return svm.svm_predict(model,toNodes(features));
+    }
+
+    static svm_node[] toNodes(double[] features)
     {
         svm_node[] nodes = new svm_node[features.length];
         for (int i = 0; i < features.length; i++)
@@ -84,18 +108,6 @@ public class SVM {
             node.value = features[i];
             nodes[i] = node;
         }
-        return svm.svm_predict(model,nodes);
-    }
-
-    public static boolean blockContainsText(Mat block){
-        int negativeRegions = 0;
-        for (Mat subregion : Training.getSubregions(block)){
-            int[] intData = LocalBinaryPattern.get_ULBP_Features(subregion);
-            double[] doubleData = Training.intArrayToDouble(intData);
-            Training.normalizeArray(doubleData);
-            double score = SVM.evaluate(doubleData,model);
-            if (Double.compare(score,-1.0) == 0) negativeRegions++;
-        }
-        return negativeRegions <= PREDICTION_THRESHOLD;
+        return nodes;
     }
 }
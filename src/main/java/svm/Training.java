@@ -29,16 +29,12 @@ public class Training {
         double[][] training_data = new double[numberOfData*50][FEATURE_DIMENSIONS];
 
         int regionCounter = 0;
-        int featureCounter = 0;
         for (File img : dir.listFiles())
         {
             Mat src = Imgcodecs.imread(img.getAbsolutePath());
-            for (Mat subregion : getSubregions(src)){
-                for (int feature : LocalBinaryPattern.get_ULBP_Features(subregion)){
-                    training_data[regionCounter][featureCounter++] = (double) feature;
-                }
-                featureCounter = 0;
-                regionCounter++;
+            BlockFeatures blockFeatures = BlockFeatures.extract(src);
+            for (int cell = 0; cell < blockFeatures.getCells(); cell++){
+                blockFeatures.getFeatures(cell, training_data[regionCounter++]);
             }
         }
         for (double[] data : training_data) {
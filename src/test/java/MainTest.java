@@ -76,7 +76,7 @@ public class MainTest extends GuiTest
         verifyThat(mainController.progressBar, (Node b) -> !b.isVisible());
         verifyThat(mainController.videoPane, (Node b) -> ((Pane)b).getChildren().size() == 1);
         verifyThat(mainController.processButton, (Node b) -> !b.isVisible());
-        verifyThat(mainController.textArea, (Node b) -> !b.isVisible());
+        verifyThat(mainController.wordsTable, (Node b) -> !b.isVisible());
         verifyThat(mainController.videoIcon, (Node b) -> b.isVisible());
     }
 
@@ -0,0 +1,46 @@
+package controllers;
+
+import entities.OcrWord;
+import javafx.collections.ListChangeListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PagedWordListTest
+{
+    @Test
+    public void readsBackWordsFromWrittenPages() throws Exception
+    {
+        PagedWordList list = new PagedWordList();
+        List<Integer> addedCounts = new ArrayList<>();
+        list.addListener((ListChangeListener<OcrWord>) change -> {
+            while (change.next()) addedCounts.add(change.getAddedSize());
+        });
+        try {
+            for (int batch = 0; batch < 10; batch++) {
+                List<OcrWord> words = new ArrayList<>();
+                for (int i = 0; i < 300; i++) {
+                    int n = batch * 300 + i;
+                    words.add(new OcrWord("word" + n, n, n + 1, n / 25.0, n % 100));
+                }
+                list.addWords(words);
+            }
+            assertEquals(3000, list.size());
+            assertEquals(10, addedCounts.size());
+            assertEquals(300, (int) addedCounts.get(9));
+            // Walk back and forth over more pages than are cached
+            for (int n : new int[]{0, 2999, 255, 256, 1234, 0, 2815, 2816, 17}) {
+                OcrWord word = list.get(n);
+                assertEquals("word" + n, word.getText());
+                assertEquals(n + 1, word.getLastFrame());
+                assertEquals(n / 25.0, word.getFirstTime(), 0);
+                assertEquals(n % 100, word.getConfidence(), 0);
+            }
+        } finally {
+            list.dispose();
+        }
+    }
+}
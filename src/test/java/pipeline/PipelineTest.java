@@ -0,0 +1,130 @@
+package pipeline;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelineTest
+{
+    @Test
+    public void orderedStageReceivesItemsInSubmissionOrder() throws Exception
+    {
+        Random random = new Random(3);
+        List<Integer> output = new ArrayList<>();
+        Pipeline<int[]> pipeline = new Pipeline<>("test", 2);
+        pipeline.addStage("square", 4, () -> item -> {
+                    Thread.sleep(random.nextInt(3));
+                    item[1] = item[0] * item[0];
+                })
+                .addStage("increment", 3, () -> item -> item[1]++)
+                .addOrderedStage("collect", () -> item -> output.add(item[1]));
+        pipeline.start();
+        for (int i = 0; i < 200; i++) {
+            pipeline.submit(new int[]{i, 0});
+        }
+        pipeline.finish();
+
+        assertEquals(200, output.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i * i + 1, (int) output.get(i));
+        }
+    }
+
+    @Test
+    public void workerFailureStopsThePipeline() throws Exception
+    {
+        AtomicInteger closed = new AtomicInteger();
+        Pipeline<Integer> pipeline = new Pipeline<>("test", 1);
+        pipeline.addStage("fail", 2, () -> new StageWorker<Integer>() {
+            @Override
+            public void process(Integer item) {
+                if (item == 5) throw new IllegalArgumentException("boom");
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }).addOrderedStage("sink", () -> item -> {});
+        pipeline.start();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                pipeline.submit(i);
+            }
+            pipeline.finish();
+            fail("The worker failure was not reported");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        } catch (IllegalArgumentException e) {
+            assertEquals("boom", e.getMessage());
+        }
+        pipeline.cancel();
+        assertEquals(2, closed.get());
+    }
+
+    @Test
+    public void cancelStopsBlockedWorkers() throws Exception
+    {
+        AtomicInteger processed = new AtomicInteger();
+        Pipeline<Integer> pipeline = new Pipeline<>("test", 1);
+        pipeline.addStage("slow", 1, () -> item -> {
+            Thread.sleep(10000);
+            processed.incrementAndGet();
+        });
+        pipeline.start();
+        pipeline.submit(1);
+        pipeline.submit(2);
+        pipeline.cancel();
+        assertTrue(pipeline.isCancelled());
+        assertEquals(0, processed.get());
+    }
+
+    @Test
+    public void stalledItemBlocksSubmitting() throws Exception
+    {
+        CountDownLatch stall = new CountDownLatch(1);
+        List<Integer> output = new ArrayList<>();
+        Pipeline<Integer> pipeline = new Pipeline<>("test", 2);
+        pipeline.addStage("stall", 4, () -> item -> {
+                    if (item == 0) stall.await();
+                })
+                .addOrderedStage("collect", () -> output::add);
+        pipeline.start();
+        AtomicInteger submitted = new AtomicInteger();
+        Thread submitter = new Thread(() -> {
+            try {
+                for (int i = 0; i < 1000; i++) {
+                    pipeline.submit(i);
+                    submitted.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        submitter.start();
+        submitter.join(500);
+
+        // The ordered stage waits for item 0, while the queues and workers hold at most 2 * 2 + 5 items
+        assertTrue(submitter.isAlive());
+        assertTrue("Submitted " + submitted.get(), submitted.get() <= 9);
+        assertTrue(output.isEmpty());
+
+        stall.countDown();
+        submitter.join();
+        pipeline.finish();
+        assertEquals(1000, output.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) output.get(i));
+        }
+        assertFalse(pipeline.isCancelled());
+    }
+}
@@ -0,0 +1,33 @@
+package processors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClassificationLogTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesOneRowPerFrame() throws Exception
+    {
+        Path outputFolder = folder.getRoot().toPath();
+        ClassificationLog log = new ClassificationLog(outputFolder);
+        log.add(1, 6, 12, 3, 10);
+        log.add(7, 7, 0, 0, 0);
+        log.close();
+        // Ignored once closed, e.g. by a worker still running after a failure
+        log.add(8, 9, 4, 1, 4);
+
+        assertEquals(Arrays.asList("frame,last_frame,candidates,accepted,early_exits", "1,6,12,3,10", "7,7,0,0,0"),
+                Files.readAllLines(outputFolder.resolve(ClassificationLog.FILE_NAME), StandardCharsets.UTF_8));
+    }
+}
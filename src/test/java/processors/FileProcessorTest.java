@@ -0,0 +1,71 @@
+package processors;
+
+import entities.OutputFolderNames;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileProcessorTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameNamedFilesGetSeparateFolders() throws Exception
+    {
+        Path outputs = folder.newFolder("outputs").toPath();
+        Path first = FileProcessor.createDirectories(new File("a", "clip.mp4"), outputs);
+        Path second = FileProcessor.createDirectories(new File("b", "clip.mp4"), outputs);
+
+        assertNotEquals(first, second);
+        for (Path outputFolder : new Path[]{first, second}) {
+            assertEquals(outputs, outputFolder.getParent());
+            assertTrue(outputFolder.getFileName().toString().startsWith("clip "));
+            for (OutputFolderNames name : OutputFolderNames.values()) {
+                assertTrue(Files.isDirectory(outputFolder.resolve(name.name())));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentJobsNeverShareAFolder() throws Exception
+    {
+        Path outputs = folder.newFolder("outputs").toPath();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Path>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            File videoFile = new File("input" + i, "clip.mp4");
+            futures.add(executor.submit(() -> FileProcessor.createDirectories(videoFile, outputs)));
+        }
+        Set<Path> outputFolders = new HashSet<>();
+        for (Future<Path> future : futures) outputFolders.add(future.get());
+        executor.shutdown();
+
+        assertEquals(16, outputFolders.size());
+    }
+
+    @Test
+    public void mirrorsTheRelativeFolderOfTheInput() throws Exception
+    {
+        Path outputs = folder.newFolder("outputs").toPath();
+        Path outputFolder = FileProcessor.createDirectories(new File("in/a/b", "clip.mp4"), outputs, Paths.get("a", "b"));
+
+        assertEquals(outputs.resolve("a").resolve("b"), outputFolder.getParent());
+    }
+}
@@ -0,0 +1,66 @@
+package processors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameSamplerTest
+{
+    @Test
+    public void fixedModeAnalysesEverySixthFrame()
+    {
+        FrameSampler sampler = new FrameSampler(false, 3, 30, 8.0);
+        for (int length = 1; length < 6; length++) {
+            assertTrue(sampler.extendsGroup(length, () -> 255.0));
+        }
+        assertFalse(sampler.extendsGroup(6, () -> 0.0));
+    }
+
+    @Test
+    public void staticSceneDoublesStrideUpToMaximum()
+    {
+        FrameSampler sampler = new FrameSampler(true, 3, 20, 8.0);
+        int[] expectedStrides = {3, 6, 12, 20, 20};
+        for (int expected : expectedStrides) {
+            assertEquals(expected, groupLength(sampler, 0.0));
+        }
+    }
+
+    @Test
+    public void sceneChangeResetsStride()
+    {
+        FrameSampler sampler = new FrameSampler(true, 2, 30, 8.0);
+        groupLength(sampler, 0.0);
+        groupLength(sampler, 0.0);
+        assertEquals(8, groupLength(sampler, 0.0));
+        // Frames within the minimum stride are never measured
+        assertEquals(2, groupLength(sampler, 50.0));
+        assertEquals(2, groupLength(sampler, 0.0));
+        assertEquals(1, sampler.getSceneChanges());
+    }
+
+    @Test
+    public void textBlockChangeResetsStride()
+    {
+        FrameSampler sampler = new FrameSampler(true, 2, 30, 8.0);
+        sampler.reportTextBlocks(1);
+        assertEquals(2, groupLength(sampler, 0.0));
+        assertEquals(4, groupLength(sampler, 0.0));
+        sampler.reportTextBlocks(1);
+        assertEquals(8, groupLength(sampler, 0.0));
+        sampler.reportTextBlocks(3);
+        assertEquals(2, groupLength(sampler, 0.0));
+    }
+
+    /**
+     * @return The length of the next group, when every frame differs by the given change from the analysed one
+     */
+    private static int groupLength(FrameSampler sampler, double change)
+    {
+        int length = 1;
+        while (sampler.extendsGroup(length, () -> change)) length++;
+        return length;
+    }
+}
@@ -0,0 +1,57 @@
+package processors;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class MgdProcessorTest
+{
+    @Test
+    public void slidingWindowMatchesPerPixelMgd()
+    {
+        Random random = new Random(42);
+        int[][] sizes = {{1, 1}, {3, 20}, {4, 21}, {5, 22}, {7, 31}, {48, 64}, {33, 200}};
+        for (int[] size : sizes)
+        {
+            int height = size[0];
+            int width = size[1];
+            short[] laplace = new short[height * width];
+            double[][] laplaceArray = new double[height][width];
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    // Laplacian of an 8-bit image with ksize 3 and scale 2 stays within these bounds
+                    short value = (short) (random.nextInt(8161) - 4080);
+                    laplace[i * width + j] = value;
+                    laplaceArray[i][j] = value;
+                }
+            }
+
+            short[] mgd = new short[height * width];
+            Arrays.fill(mgd, (short) -1);
+            MgdProcessor.computeMgd(laplace, mgd, width, height, new int[width], new int[width]);
+
+            for (int i = 0; i < height; i++) {
+                for (int j = 0; j < width; j++) {
+                    double expected = (j >= 10 && j < width - 10) ? PixelProcessor.getMgdNumber(i, j, laplaceArray) : 0.0;
+                    assertEquals("pixel (" + i + "," + j + ") of " + height + "x" + width,
+                            (short) expected, mgd[i * width + j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void differenceSaturatesLikeShortMat()
+    {
+        int width = 21;
+        short[] laplace = new short[width];
+        laplace[0] = Short.MIN_VALUE;
+        laplace[20] = Short.MAX_VALUE;
+        short[] mgd = new short[width];
+        MgdProcessor.computeMgd(laplace, mgd, width, 1, new int[width], new int[width]);
+        assertEquals(Short.MAX_VALUE, mgd[10]);
+    }
+}
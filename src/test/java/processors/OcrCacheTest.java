@@ -0,0 +1,63 @@
+package processors;
+
+import entities.RecognizedWord;
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OcrCacheTest
+{
+    @Test
+    public void similarHashesHitWithinTolerance()
+    {
+        OcrCache cache = new OcrCache(8, 2);
+        List<RecognizedWord> words = words("channel", "news");
+        cache.put(new long[]{0b1111L, 0L, 0L, 0L, 3L}, words);
+
+        assertEquals(words, cache.get(new long[]{0b1111L, 0L, 0L, 0L, 3L}));
+        assertEquals(words, cache.get(new long[]{0b1100L, 0L, 0L, 0L, 3L}));
+        assertNull(cache.get(new long[]{0b1000L, 0L, 0L, 0L, 3L}));
+        // Different aspect ratio
+        assertNull(cache.get(new long[]{0b1111L, 0L, 0L, 0L, 2L}));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted()
+    {
+        OcrCache cache = new OcrCache(2, 0);
+        List<RecognizedWord> first = words("first");
+        cache.put(new long[]{1L, 0L, 0L, 0L, 0L}, first);
+        cache.put(new long[]{2L, 0L, 0L, 0L, 0L}, words("second"));
+        cache.get(new long[]{1L, 0L, 0L, 0L, 0L});
+        cache.put(new long[]{4L, 0L, 0L, 0L, 0L}, words("third"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(new long[]{2L, 0L, 0L, 0L, 0L}));
+        assertEquals(first, cache.get(new long[]{1L, 0L, 0L, 0L, 0L}));
+    }
+
+    @Test
+    public void disabledCacheKeepsNothing()
+    {
+        OcrCache cache = new OcrCache(0, 6);
+        cache.put(new long[]{1L, 0L, 0L, 0L, 0L}, words("word"));
+        assertNull(cache.get(new long[]{1L, 0L, 0L, 0L, 0L}));
+        assertEquals(0, cache.size());
+    }
+
+    private static List<RecognizedWord> words(String... texts)
+    {
+        List<RecognizedWord> words = new ArrayList<>();
+        for (String text : texts) words.add(new RecognizedWord(text, 90f, new Rect()));
+        return words;
+    }
+}
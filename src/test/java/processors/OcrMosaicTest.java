@@ -0,0 +1,85 @@
+package processors;
+
+import entities.RecognizedWord;
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OcrMosaicTest
+{
+    private static final byte W = (byte) 255;
+
+    @Test
+    public void splitsByBlockCountAndHeight()
+    {
+        assertRanges(OcrMosaic.split(new int[]{40, 40, 40, 40, 40, 40, 40, 40}, 3), 0, 3, 3, 6, 6, 8);
+        assertRanges(OcrMosaic.split(new int[]{40, 40, 40}, 1), 0, 1, 1, 2, 2, 3);
+        // Two of these do not fit in one mosaic
+        assertRanges(OcrMosaic.split(new int[]{2000, 2000, 40}, 8), 0, 1, 1, 3);
+        // The tall block widens every separator: 2 * 10 + 2080 + 2 * 1000 is over 4096
+        int[] heights = {2000, 40, 40, 40};
+        List<int[]> ranges = OcrMosaic.split(heights, 8);
+        assertRanges(ranges, 0, 2, 2, 4);
+        for (int[] range : ranges) {
+            int[] mosaicHeights = Arrays.copyOfRange(heights, range[0], range[1]);
+            assertTrue(new OcrMosaic(null, new int[mosaicHeights.length], mosaicHeights).getHeight() <= 4096);
+        }
+        assertEquals(0, OcrMosaic.split(new int[0], 8).size());
+    }
+
+    @Test
+    public void stacksBlocksDarkOnWhite()
+    {
+        OcrMosaic mosaic = new OcrMosaic(null, new int[]{4, 3}, new int[]{2, 3});
+        assertEquals(24, mosaic.getWidth());
+        assertEquals(45, mosaic.getHeight());
+
+        byte[] pixels = mosaic.render(Arrays.asList(
+                // Dark text on white
+                new byte[]{W, 0, W, W,
+                           W, W, W, W},
+                // White text on dark, inverted
+                new byte[]{0, 0, 0,
+                           0, W, 0,
+                           0, 0, 0}));
+        int white = 0;
+        for (byte pixel : pixels) if (pixel == W) white++;
+        assertEquals(pixels.length - 2, white);
+        assertEquals(0, pixels[10 * 24 + 11]);
+        assertEquals(0, pixels[33 * 24 + 11]);
+    }
+
+    @Test
+    public void mapsWordsBackToTheirBlock()
+    {
+        OcrMosaic mosaic = new OcrMosaic(null, new int[]{100, 80}, new int[]{30, 40});
+        // Blocks at y 10 and 60, 20 pixels apart
+        List<List<RecognizedWord>> words = mosaic.assign(Arrays.asList(
+                new RecognizedWord("top", 90, new Rect(15, 12, 30, 25)),
+                new RecognizedWord("bottom", 80, new Rect(20, 62, 40, 36)),
+                new RecognizedWord("overhang", 70, new Rect(50, 40, 20, 10))));
+
+        assertEquals(2, words.size());
+        assertEquals(2, words.get(0).size());
+        assertEquals(new Rect(5, 2, 30, 25), words.get(0).get(0).getBox());
+        assertEquals("overhang", words.get(0).get(1).getText());
+        assertEquals(1, words.get(1).size());
+        assertEquals("bottom", words.get(1).get(0).getText());
+        assertEquals(80, words.get(1).get(0).getConfidence(), 0);
+        assertEquals(new Rect(10, 2, 40, 36), words.get(1).get(0).getBox());
+    }
+
+    private static void assertRanges(List<int[]> ranges, int... bounds)
+    {
+        assertEquals(bounds.length / 2, ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            assertArrayEquals(new int[]{bounds[2 * i], bounds[2 * i + 1]}, ranges.get(i));
+        }
+    }
+}
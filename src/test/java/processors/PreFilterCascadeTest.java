@@ -0,0 +1,65 @@
+package processors;
+
+import entities.PreFilter;
+import entities.ProcessingSettings;
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PreFilterCascadeTest
+{
+    @Test
+    public void strokeWidthSeparatesThinStrokesFromBars()
+    {
+        int rows = 50;
+        int cols = 100;
+        byte[] strokes = new byte[rows * cols];
+        byte[] bar = new byte[rows * cols];
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < cols; y++) {
+                // 3 pixel wide vertical strokes every 10 pixels, and a bar covering a third of the rows
+                strokes[x * cols + y] = (byte) (y % 10 < 3 ? 255 : 20);
+                bar[x * cols + y] = (byte) (x >= 20 && x < 36 ? 255 : 20);
+            }
+        }
+        assertEquals(3.0 / rows, PreFilterCascade.getStrokeWidth(strokes, rows, cols), 1e-9);
+        assertEquals((double) cols / rows, PreFilterCascade.getStrokeWidth(bar, rows, cols), 1e-9);
+        assertEquals(0, PreFilterCascade.getStrokeWidth(new byte[rows * cols], rows, cols), 0);
+    }
+
+    @Test
+    public void varianceOfIntensities()
+    {
+        assertEquals(0, PreFilterCascade.getVariance(new byte[]{7, 7, 7}), 0);
+        assertEquals(100 * 100, PreFilterCascade.getVariance(new byte[]{(byte) 200, 0, (byte) 200, 0}), 1e-9);
+    }
+
+    @Test
+    public void evaluationCountsRejectionsWithoutRejecting()
+    {
+        ProcessingSettings settings = new ProcessingSettings();
+        settings.setPreFilters(EnumSet.of(PreFilter.FILL_RATIO));
+        settings.setMinFillRatio(0.5);
+        PreFilterCascade cascade = new PreFilterCascade(settings);
+        int sparse = cascade.checkComponent(new Rect(0, 0, 10, 10), 20, null);
+        assertTrue(cascade.isRejected(sparse));
+        assertFalse(cascade.isRejected(cascade.checkComponent(new Rect(0, 0, 10, 10), 80, null)));
+
+        settings.setPreFilterEvaluation(true);
+        PreFilterCascade evaluation = new PreFilterCascade(settings);
+        sparse = evaluation.checkComponent(new Rect(0, 0, 10, 10), 20, null);
+        assertFalse(evaluation.isRejected(sparse));
+        evaluation.count(sparse, true);
+        evaluation.count(sparse, false);
+        evaluation.count(evaluation.checkComponent(new Rect(0, 0, 10, 10), 80, null), true);
+        assertEquals(2, evaluation.getRejected(PreFilter.FILL_RATIO));
+        assertEquals(1, evaluation.getLostBlocks(PreFilter.FILL_RATIO));
+        assertEquals("[Pre-filter fill ratio would reject 2 of 3 candidates, losing 1 of 2 text blocks (50.0% recall)]\n",
+                evaluation.getReport());
+    }
+}
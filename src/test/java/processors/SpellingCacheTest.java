@@ -0,0 +1,59 @@
+package processors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpellingCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsHitsAndMisses()
+    {
+        SpellingCache cache = new SpellingCache(10);
+        assertNull(cache.get("teh"));
+        cache.put("teh", "the");
+        assertEquals("the", cache.get("teh"));
+        assertEquals("the", cache.get("teh"));
+
+        assertEquals(2, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    public void correctionsSurviveARestart() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("spelling.tsv");
+        SpellingCache first = new SpellingCache(10);
+        first.setPersistenceFile(file);
+        first.put("teh", "the");
+        first.put("xqzt", " ");
+        first.put("two\tcolumns", "skipped");
+        first.save();
+
+        SpellingCache second = new SpellingCache(10);
+        second.setPersistenceFile(file);
+        assertEquals(2, second.size());
+        assertEquals("the", second.get("teh"));
+        assertEquals(" ", second.get("xqzt"));
+    }
+
+    @Test
+    public void fileOfAnotherVersionIsIgnored() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("spelling.tsv");
+        Files.write(file, Collections.singletonList("teh\tthe"));
+        SpellingCache cache = new SpellingCache(10);
+        cache.setPersistenceFile(file);
+        assertEquals(0, cache.size());
+    }
+}
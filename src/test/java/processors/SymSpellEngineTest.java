@@ -0,0 +1,75 @@
+package processors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SymSpellEngineTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SymSpellEngine dictionary()
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        frequencies.put("the", 1000);
+        frequencies.put("there", 300);
+        frequencies.put("their", 400);
+        frequencies.put("weather", 50);
+        frequencies.put("whether", 60);
+        frequencies.put("international", 20);
+        frequencies.put("news", 90);
+        return SymSpellEngine.build(frequencies);
+    }
+
+    @Test
+    public void correctsToTheClosestMostFrequentWord()
+    {
+        SymSpellEngine dictionary = dictionary();
+        assertEquals("news", dictionary.lookup("news"));
+        assertEquals("news", dictionary.lookup("nevs"));
+        assertEquals("their", dictionary.lookup("theri"));
+        assertEquals("weather", dictionary.lookup("weathr"));
+        // Equally close to weather and whether
+        assertEquals("whether", dictionary.lookup("waether"));
+        // Beyond the indexed prefix
+        assertEquals("international", dictionary.lookup("internatoinal"));
+        assertEquals("international", dictionary.lookup("internationl"));
+        assertNull(dictionary.lookup("xylophone"));
+    }
+
+    @Test
+    public void keepsTheCaseAndNumbers()
+    {
+        SymSpellEngine dictionary = dictionary();
+        assertEquals("News", dictionary.correct("Nevs"));
+        assertEquals("NEWS", dictionary.correct("NEVS"));
+        assertEquals("2017", dictionary.correct("2017"));
+        assertEquals(" ", dictionary.correct("xylophone"));
+    }
+
+    @Test
+    public void indexFileRoundTrip() throws Exception
+    {
+        Path file = folder.getRoot().toPath().resolve("eng_frequency.idx");
+        dictionary().save(file);
+        SymSpellEngine loaded = SymSpellEngine.load(file);
+        assertEquals(7, loaded.size());
+        assertEquals("whether", loaded.lookup("whehter"));
+    }
+
+    @Test
+    public void distanceCountsTranspositionsOnce()
+    {
+        assertEquals(1, SymSpellEngine.distance("ab", "ba", 2));
+        assertEquals(2, SymSpellEngine.distance("kitten", "sittin", 2));
+        assertEquals(3, SymSpellEngine.distance("kitten", "sitting", 2));
+    }
+}
@@ -0,0 +1,54 @@
+package processors;
+
+import entities.ProcessingSettings;
+import org.junit.Test;
+import org.opencv.core.Rect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TextBlockMergerTest
+{
+    @Test
+    public void joinsFragmentsOfALineAndOverlappingBlocks()
+    {
+        TextBlockMerger merger = new TextBlockMerger(new ProcessingSettings());
+        List<Rect> blocks = merger.merge(Arrays.asList(
+                // A caption line broken in three, the gaps below half its height
+                new Rect(300, 600, 120, 40), new Rect(100, 602, 150, 38), new Rect(260, 598, 30, 44),
+                // Contained in the first fragment
+                new Rect(320, 610, 20, 20),
+                // The same line seen as two overlapping boxes
+                new Rect(100, 100, 200, 40), new Rect(110, 105, 200, 40),
+                // Too far right to belong to the caption line
+                new Rect(480, 600, 100, 40),
+                // On the next line
+                new Rect(100, 660, 200, 40)));
+
+        assertEquals(Arrays.asList(new Rect(100, 100, 210, 45), new Rect(100, 598, 320, 44),
+                new Rect(480, 600, 100, 40), new Rect(100, 660, 200, 40)), sortByY(blocks));
+        assertEquals(8, merger.getInputBlocks());
+        assertEquals(2, merger.getMergedBlocks());
+        assertEquals(2, merger.getSuppressedBlocks());
+    }
+
+    @Test
+    public void keepsSeparateBlocks()
+    {
+        ProcessingSettings settings = new ProcessingSettings();
+        settings.setMaxMergeGap(0);
+        TextBlockMerger merger = new TextBlockMerger(settings);
+        List<Rect> separate = Arrays.asList(new Rect(0, 0, 100, 40), new Rect(110, 0, 100, 40));
+        assertEquals(separate, merger.merge(separate));
+        assertEquals(Collections.emptyList(), merger.merge(Collections.emptyList()));
+    }
+
+    private static List<Rect> sortByY(List<Rect> blocks)
+    {
+        blocks.sort((a, b) -> a.y != b.y ? Integer.compare(a.y, b.y) : Integer.compare(a.x, b.x));
+        return blocks;
+    }
+}
@@ -0,0 +1,184 @@
+package processors;
+
+import entities.ApplicationPaths;
+import entities.TextTrack;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TextBlockTrackerTest
+{
+    private static final Rect CAPTION = new Rect(20, 60, 220, 44);
+    private static final Rect TITLE = new Rect(20, 4, 220, 44);
+
+    @BeforeClass
+    public static void loadLibraries() throws Exception
+    {
+        ApplicationPaths.setApplicationPaths();
+        FileProcessor.loadLibraries(message -> {});
+    }
+
+    @Test
+    public void intersectionOverUnion()
+    {
+        Rect block = new Rect(10, 10, 100, 20);
+        assertEquals(1.0, TextBlockTracker.intersectionOverUnion(block, new Rect(10, 10, 100, 20)), 1e-9);
+        // Half of the block shifted right: intersection 50x20, union 150x20
+        assertEquals(1.0 / 3.0, TextBlockTracker.intersectionOverUnion(block, new Rect(60, 10, 100, 20)), 1e-9);
+        // Contained block
+        assertEquals(0.25, TextBlockTracker.intersectionOverUnion(block, new Rect(10, 10, 25, 20)), 1e-9);
+        // Touching and disjoint blocks
+        assertEquals(0.0, TextBlockTracker.intersectionOverUnion(block, new Rect(110, 10, 100, 20)), 0.0);
+        assertEquals(0.0, TextBlockTracker.intersectionOverUnion(block, new Rect(0, 100, 10, 10)), 0.0);
+    }
+
+    @Test
+    public void trackEndsAfterMissingFrames()
+    {
+        TextBlockTracker tracker = new TextBlockTracker();
+        Mat frame = frame("HELLO", null, 0);
+        Mat empty = frame(null, null, 0);
+
+        assertTrue(tracker.update(1, 6, Collections.singletonList(CAPTION), frame, false).isEmpty());
+        assertEquals(TextTrack.State.NEW, tracker.getActiveTracks().get(0).getState());
+        // A few pixels of jitter continue the track
+        Rect jittered = new Rect(CAPTION.x + 2, CAPTION.y - 1, CAPTION.width - 3, CAPTION.height);
+        assertTrue(tracker.update(7, 12, Collections.singletonList(jittered), frame, false).isEmpty());
+        assertEquals(1, tracker.getActiveTracks().size());
+        assertEquals(TextTrack.State.STABLE, tracker.getActiveTracks().get(0).getState());
+
+        // Missing from one analysed frame is tolerated, from two ends the track
+        assertTrue(tracker.update(13, 18, Collections.emptyList(), empty, false).isEmpty());
+        List<TextTrack> ended = tracker.update(19, 24, Collections.emptyList(), empty, false);
+
+        assertEquals(1, ended.size());
+        TextTrack track = ended.get(0);
+        assertEquals(TextTrack.State.ENDED, track.getState());
+        assertEquals(1, track.getFirstFrame());
+        assertEquals(12, track.getLastFrame());
+        assertEquals(2, track.getSightings());
+        assertTrue(tracker.getActiveTracks().isEmpty());
+        assertEquals(1, tracker.getEndedTracks());
+        assertEquals(2, tracker.getSightings());
+        release(ended);
+        tracker.close();
+        frame.release();
+        empty.release();
+    }
+
+    @Test
+    public void lastFrameEndsEveryTrack()
+    {
+        TextBlockTracker tracker = new TextBlockTracker();
+        Mat frame = frame("HELLO", "NEWS", 0);
+
+        tracker.update(1, 6, Collections.singletonList(CAPTION), frame, false);
+        List<TextTrack> ended = tracker.update(7, 9, Arrays.asList(TITLE, CAPTION), frame, true);
+
+        assertEquals(2, ended.size());
+        // Ordered by their first frame
+        assertEquals(1, ended.get(0).getFirstFrame());
+        assertEquals(CAPTION, ended.get(0).getBox());
+        assertEquals(7, ended.get(1).getFirstFrame());
+        assertEquals(TITLE, ended.get(1).getBox());
+        for (TextTrack track : ended) {
+            assertEquals(TextTrack.State.ENDED, track.getState());
+            assertEquals(9, track.getLastFrame());
+        }
+        assertTrue(tracker.getActiveTracks().isEmpty());
+        release(ended);
+        tracker.close();
+        frame.release();
+    }
+
+    @Test
+    public void differentTextInTheSameBlockStartsANewTrack()
+    {
+        TextBlockTracker tracker = new TextBlockTracker();
+        Mat first = frame("HELLO", null, 0);
+        Mat second = frame("SEE YOU", null, 0);
+
+        tracker.update(1, 6, Collections.singletonList(CAPTION), first, false);
+        TextTrack hello = tracker.getActiveTracks().get(0);
+        tracker.update(7, 12, Collections.singletonList(CAPTION), second, false);
+
+        assertEquals(2, tracker.getActiveTracks().size());
+        assertEquals(1, hello.getSightings());
+        assertEquals(6, hello.getLastFrame());
+        // The first text is missing from its second analysed frame
+        List<TextTrack> ended = tracker.update(13, 18, Collections.singletonList(CAPTION), second, false);
+
+        assertEquals(1, ended.size());
+        assertSame(hello, ended.get(0));
+        assertEquals(1, tracker.getActiveTracks().size());
+        assertEquals(7, tracker.getActiveTracks().get(0).getFirstFrame());
+        assertEquals(2, tracker.getActiveTracks().get(0).getSightings());
+        release(ended);
+        tracker.close();
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void keepsTheSharpestInstance()
+    {
+        TextBlockTracker tracker = new TextBlockTracker();
+        Mat blurred = frame("HELLO", null, 5);
+        Mat sharp = frame("HELLO", null, 0);
+
+        tracker.update(1, 6, Collections.singletonList(CAPTION), blurred, false);
+        tracker.update(7, 12, Collections.singletonList(CAPTION), sharp, false);
+        List<TextTrack> ended = tracker.update(13, 18, Collections.singletonList(CAPTION), blurred, true);
+
+        assertEquals(1, ended.size());
+        assertEquals(3, ended.get(0).getSightings());
+        Mat expected = new Mat(sharp, CAPTION);
+        assertEquals(0.0, Core.norm(expected, ended.get(0).getBestInstance()), 0.0);
+        expected.release();
+        release(ended);
+        tracker.close();
+        blurred.release();
+        sharp.release();
+    }
+
+    /**
+     * @param caption The text in the caption block, or null
+     * @param title The text in the title block, or null
+     * @param blur The size of the box blur applied to the frame, 0 for none
+     * @return A synthetic RGB frame
+     */
+    private static Mat frame(String caption, String title, int blur)
+    {
+        Mat frame = new Mat(110, 260, CvType.CV_8UC3, new Scalar(30, 30, 30));
+        if (caption != null) {
+            Imgproc.putText(frame, caption, new Point(CAPTION.x + 8, CAPTION.y + 34), Core.FONT_HERSHEY_SIMPLEX,
+                    1.1, new Scalar(240, 240, 240), 2);
+        }
+        if (title != null) {
+            Imgproc.putText(frame, title, new Point(TITLE.x + 8, TITLE.y + 34), Core.FONT_HERSHEY_SIMPLEX,
+                    1.1, new Scalar(240, 240, 240), 2);
+        }
+        if (blur > 0) Imgproc.blur(frame, frame, new Size(blur, blur));
+        return frame;
+    }
+
+    private static void release(List<TextTrack> tracks)
+    {
+        for (TextTrack track : tracks) track.release();
+    }
+}
@@ -0,0 +1,45 @@
+package processors;
+
+import entities.OcrWord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class WordIndexTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void indexesOccurrencesInOrderOfFirstAppearance() throws Exception
+    {
+        Path outputFolder = folder.getRoot().toPath();
+        WordIndex index = new WordIndex(outputFolder, 25.0);
+        List<OcrWord> newWords = index.add(Arrays.asList(
+                new OcrWord("news", 26, 50, 1.00, 90f), new OcrWord(" ", 26, 50, 1.00, 0f), new OcrWord("today", 26, 50, 1.00, 60f)));
+        assertEquals(2, newWords.size());
+        assertEquals(Collections.emptyList(), index.add(Collections.singletonList(new OcrWord("news", 101, 125, 4.00, 88f))));
+        assertEquals(2, index.getCount("news"));
+
+        // Occurrences are written before the index is closed
+        List<String> occurrences = Files.readAllLines(outputFolder.resolve(WordIndex.OCCURRENCES_FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(3, occurrences.size());
+        assertEquals("{\"word\":\"news\",\"firstFrame\":26,\"lastFrame\":50,\"firstTime\":1.000,\"lastTime\":1.960,\"confidence\":90}",
+                occurrences.get(0));
+
+        index.close();
+        List<String> summary = Files.readAllLines(outputFolder.resolve(WordIndex.SUMMARY_FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("word,count,first_frame,last_frame,first_time,last_time",
+                "news,2,26,125,1.000,4.960",
+                "today,1,26,50,1.000,1.960"), summary);
+    }
+}
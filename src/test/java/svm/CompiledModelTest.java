@@ -0,0 +1,51 @@
+package svm;
+
+import libsvm.svm;
+import libsvm.svm_model;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledModelTest
+{
+    @Test
+    public void linearScoresAgreeWithSvmPredictOnBundledModels() throws Exception
+    {
+        File[] modelFiles = Paths.get("src", "main", "resources", "models").toFile().listFiles((dir, name) -> name.endsWith(".model"));
+        assertTrue(modelFiles != null && modelFiles.length > 0);
+        Random random = new Random(3);
+        double[] decision = new double[1];
+        for (File modelFile : modelFiles)
+        {
+            svm_model model = svm.svm_load_model(modelFile.getAbsolutePath());
+            CompiledModel compiled = CompiledModel.compile(model);
+            assertTrue(modelFile.getName(), compiled.isLinear());
+
+            for (int i = 0; i < 500; i++)
+            {
+                double[] features = cellFeatures(random);
+                double expected = svm.svm_predict_values(model, SVM.toNodes(features), decision);
+                assertEquals(modelFile.getName(), decision[0], compiled.decisionValue(features), 1e-6);
+                if (Math.abs(decision[0]) > 1e-6) assertEquals(modelFile.getName(), expected, compiled.predict(features), 0);
+            }
+        }
+    }
+
+    /**
+     * @return The normalized features of a random cell, with a random number of distinct grey levels
+     */
+    private static double[] cellFeatures(Random random)
+    {
+        byte[] pixels = new byte[100];
+        int levels = 2 + random.nextInt(255);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = (byte) (random.nextInt(levels) * 255 / (levels - 1));
+        double[] features = BlockFeatures.extract(pixels, 10, 10, 1).getFeatures(0, new double[LocalBinaryPattern.FEATURE_DIMENSIONS]);
+        Training.normalizeArray(features);
+        return features;
+    }
+}
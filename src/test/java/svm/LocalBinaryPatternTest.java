@@ -0,0 +1,83 @@
+package svm;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LocalBinaryPatternTest
+{
+    @Test
+    public void uniformFeaturesMatchReferenceHistogram()
+    {
+        Random random = new Random(7);
+        int[][] sizes = {{1, 1}, {3, 3}, {10, 10}, {10, 10}, {17, 23}, {60, 50}};
+        int[] histogram = new int[LocalBinaryPattern.FEATURE_DIMENSIONS];
+        for (int[] size : sizes)
+        {
+            for (int channels : new int[]{1, 3})
+            {
+                byte[] pixels = new byte[size[0] * size[1] * channels];
+                // Few distinct values, so neighbours are often equal to the center
+                for (int i = 0; i < pixels.length; i++) pixels[i] = (byte) (random.nextInt(4) * 85);
+                int[] expected = LocalBinaryPattern.get_ULBP_Features(pixels, size[0], size[1], channels);
+                assertEquals(LocalBinaryPattern.FEATURE_DIMENSIONS, expected.length);
+                assertArrayEquals(size[0] + "x" + size[1] + "x" + channels, expected,
+                        LocalBinaryPattern.getUniformFeatures(pixels, size[0], size[1], channels, histogram));
+            }
+        }
+    }
+
+    @Test
+    public void everyPatternLandsInItsBin()
+    {
+        // A 3x3 image has a single center pixel; set the neighbours of each pattern above it
+        int[][] neighbours = {{1, 2}, {2, 2}, {2, 1}, {2, 0}, {1, 0}, {0, 0}, {0, 1}, {0, 2}};
+        for (int code = 0; code < 256; code++)
+        {
+            byte[] pixels = new byte[9];
+            pixels[4] = (byte) 128;
+            for (int bit = 0; bit < 8; bit++) {
+                pixels[neighbours[bit][0] * 3 + neighbours[bit][1]] = (byte) (((code >> bit) & 1) == 1 ? 129 : 128);
+            }
+            assertArrayEquals("pattern " + code, LocalBinaryPattern.get_ULBP_Features(pixels, 3, 3, 1),
+                    LocalBinaryPattern.getUniformFeatures(pixels, 3, 3, 1, new int[LocalBinaryPattern.FEATURE_DIMENSIONS]));
+        }
+    }
+
+    @Test
+    public void blockFeaturesMatchSubregionFeatures()
+    {
+        Random random = new Random(11);
+        int rows = 50;
+        int cols = 100;
+        for (int channels : new int[]{1, 3})
+        {
+            byte[] pixels = new byte[rows * cols * channels];
+            for (int i = 0; i < pixels.length; i++) pixels[i] = (byte) random.nextInt(256);
+            BlockFeatures features = BlockFeatures.extract(pixels, rows, cols, channels);
+            assertEquals(50, features.getCells());
+            assertEquals(50 * LocalBinaryPattern.FEATURE_DIMENSIONS, features.getHistograms().length);
+
+            int cellSize = BlockFeatures.CELL_SIZE;
+            double[] cellFeatures = new double[LocalBinaryPattern.FEATURE_DIMENSIONS];
+            for (int cell = 0; cell < 50; cell++)
+            {
+                // Copy the cell out, as a subregion Mat would be read
+                byte[] subregion = new byte[cellSize * cellSize * channels];
+                int top = cell / 10 * cellSize;
+                int left = cell % 10 * cellSize;
+                for (int x = 0; x < cellSize; x++) {
+                    System.arraycopy(pixels, ((top + x) * cols + left) * channels, subregion, x * cellSize * channels, cellSize * channels);
+                }
+                int[] expected = LocalBinaryPattern.get_ULBP_Features(subregion, cellSize, cellSize, channels);
+                features.getFeatures(cell, cellFeatures);
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals("cell " + cell + ", bin " + i, expected[i], cellFeatures[i], 0);
+                }
+            }
+        }
+    }
+}